@@ -0,0 +1,144 @@
+package org.parchmentmc.lodestone.asm;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A class byte store which keeps class files on the heap as is until they take up the given memory budget.
+ * Any class file stored beyond the budget is read again from its jar each time it is requested, without being read up front.
+ * Class files handed over as bytes beyond the budget have no jar to be read from, so they are kept deflated instead.
+ * Removing a class file that is kept as is frees its share of the budget again.
+ */
+public class BudgetedClassByteStore implements ClassByteStore {
+
+    private final long budget;
+    private final AtomicLong used = new AtomicLong();
+    private final Map<String, byte[]> classes = new ConcurrentHashMap<>();
+    private final Map<String, ClassFileReader> readers = new ConcurrentHashMap<>();
+    private final Map<String, DeflatedClass> deflatedClasses = new ConcurrentHashMap<>();
+
+    /**
+     * Main Constructor
+     * 
+     * @param budget The number of bytes of class files kept on the heap as is.
+     */
+    public BudgetedClassByteStore(final long budget) {
+        if (budget < 0)
+            throw new IllegalArgumentException("The memory budget can not be negative: " + budget);
+        this.budget = budget;
+    }
+
+    @Override
+    public void put(final String cls, final byte[] data) {
+        if (used.addAndGet(data.length) <= budget) {
+            classes.put(cls, data);
+        } else {
+            used.addAndGet(-data.length);
+            deflatedClasses.put(cls, new DeflatedClass(data));
+        }
+    }
+
+    @Override
+    public void put(final String cls, final long size, final ClassFileReader reader) throws IOException {
+        if (size < 0) {
+            put(cls, reader.read());
+        } else if (used.addAndGet(size) <= budget) {
+            final byte[] data = reader.read();
+            // The recorded size is only trusted for the decision, the budget is charged for the actual class file.
+            used.addAndGet(data.length - size);
+            classes.put(cls, data);
+        } else {
+            used.addAndGet(-size);
+            readers.put(cls, reader);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @throws UncheckedIOException Throws an UncheckedIOException if the class file had to be read from its jar and that failed.
+     */
+    @Override
+    public byte[] get(final String cls) {
+        final byte[] data = classes.get(cls);
+        if (data != null)
+            return data;
+
+        final ClassFileReader reader = readers.get(cls);
+        if (reader != null) {
+            try {
+                return reader.read();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read class " + cls, e);
+            }
+        }
+
+        final DeflatedClass deflatedClass = deflatedClasses.get(cls);
+        return deflatedClass != null ? deflatedClass.inflate() : null;
+    }
+
+    @Override
+    public void remove(final String cls) {
+        final byte[] data = classes.remove(cls);
+        if (data != null) {
+            used.addAndGet(-data.length);
+        } else if (readers.remove(cls) == null) {
+            deflatedClasses.remove(cls);
+        }
+    }
+
+    private static final class DeflatedClass {
+        private final int length;
+        private final byte[] data;
+
+        private DeflatedClass(final byte[] data) {
+            final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                deflater.setInput(data);
+                deflater.finish();
+                // Class files deflate well, so the buffer only grows for tiny or odd classes.
+                byte[] buffer = new byte[Math.max(64, data.length / 2)];
+                int size = 0;
+                while (!deflater.finished()) {
+                    if (size == buffer.length) {
+                        final byte[] grown = new byte[buffer.length * 2];
+                        System.arraycopy(buffer, 0, grown, 0, size);
+                        buffer = grown;
+                    }
+                    size += deflater.deflate(buffer, size, buffer.length - size);
+                }
+                this.length = data.length;
+                this.data = new byte[size];
+                System.arraycopy(buffer, 0, this.data, 0, size);
+            } finally {
+                deflater.end();
+            }
+        }
+
+        private byte[] inflate() {
+            final Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(data);
+                final byte[] inflated = new byte[length];
+                int size = 0;
+                while (size < length) {
+                    final int read = inflater.inflate(inflated, size, length - size);
+                    if (read == 0 && (inflater.finished() || inflater.needsInput()))
+                        throw new IllegalStateException("Deflated class file is truncated");
+                    size += read;
+                }
+                return inflated;
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Deflated class file is corrupt", e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+}
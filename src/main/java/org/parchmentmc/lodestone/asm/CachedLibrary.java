@@ -0,0 +1,410 @@
+package org.parchmentmc.lodestone.asm;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A library read from a hierarchy cache file written by the {@link LibraryHierarchyCache}.
+ * Instead of class files, the cache file holds a summary of every class: the class header and the access, name,
+ * descriptor and signature of every method, plus the target of every bouncer. All names are stored once in a string table.
+ * <p>
+ * The file starts with a checksum of the rest of the file, the offsets of all strings and an index of all classes, followed by
+ * the strings and the summaries. The checksum is verified when the file is opened, so a damaged file is rejected before any
+ * summary is decoded from it.
+ * Only the index and the class names are decoded when the file is opened. The summary of a class is decoded from the memory
+ * mapped file on demand, and replayed to the parser as if a class file with only the declarations of the class and minimal
+ * bouncer bodies had been read. Any other string is decoded the first time a summary refers to it.
+ */
+final class CachedLibrary implements LibrarySource {
+
+    private static final int MAGIC = 0x4C444843; // LDHC
+    static final int VERSION = 3;
+    private static final int HEADER_SIZE = 20;
+    private static final int SUMMARY = 0;
+    private static final int CLASS_FILE = 1;
+    private static final int NONE = -1;
+
+    private final ByteBuffer data;
+    private final int[] stringOffsets;
+    private final int stringsStart;
+
+    /**
+     * The decoded strings, filled in as they are used. Strings are immutable, so a string decoded twice by racing threads does no harm.
+     */
+    private final String[] strings;
+    private final List<String> classes;
+    private final Map<String, Integer> positions;
+    private final int[] offsets;
+    private final int[] lengths;
+
+    private CachedLibrary(final ByteBuffer data, final int[] stringOffsets, final int stringsStart, final int[] classNames, final int[] offsets, final int[] lengths) {
+        this.data = data;
+        this.stringOffsets = stringOffsets;
+        this.stringsStart = stringsStart;
+        this.strings = new String[stringOffsets.length - 1];
+        final List<String> classes = new ArrayList<>(classNames.length);
+        for (int name : classNames) {
+            classes.add(string(name));
+        }
+        this.classes = Collections.unmodifiableList(classes);
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.positions = new HashMap<>(classes.size() * 2);
+        for (int i = 0; i < classes.size(); i++) {
+            this.positions.putIfAbsent(classes.get(i), i);
+        }
+    }
+
+    /**
+     * Opens a hierarchy cache file.
+     *
+     * @param file The path to the cache file.
+     * @return Returns the library stored in the cache file.
+     * @throws IOException Throws an IOException if the file could not be read or is not a valid cache file.
+     */
+    static CachedLibrary open(final Path file) throws IOException {
+        final MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (mapped.limit() < HEADER_SIZE || mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION)
+            throw new IOException("Not a valid library hierarchy cache file: " + file);
+
+        final CRC32 checksum = new CRC32();
+        final ByteBuffer checked = mapped.duplicate();
+        checked.position(12);
+        checksum.update(checked);
+        if ((int) checksum.getValue() != mapped.getInt(8))
+            throw new IOException("Corrupt library hierarchy cache file: " + file);
+
+        final int stringCount = mapped.getInt(12);
+        final int count = mapped.getInt(16);
+        final long stringsStart = HEADER_SIZE + 4L * (stringCount + 1) + 12L * count;
+        if (stringCount < 0 || count < 0 || stringsStart > mapped.limit())
+            throw new IOException("Corrupt library hierarchy cache file: " + file);
+
+        final ByteBuffer indexData = mapped.duplicate();
+        indexData.position(HEADER_SIZE);
+        final IntBuffer index = indexData.asIntBuffer();
+        final int[] stringOffsets = new int[stringCount + 1];
+        index.get(stringOffsets);
+        final long recordsStart = stringsStart + stringOffsets[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            if (stringOffsets[i] < 0 || stringOffsets[i] > stringOffsets[i + 1])
+                throw new IOException("Corrupt library hierarchy cache file: " + file);
+        }
+        if (recordsStart > mapped.limit())
+            throw new IOException("Corrupt library hierarchy cache file: " + file);
+
+        final int[] classNames = new int[count];
+        final int[] offsets = new int[count];
+        final int[] lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            classNames[i] = index.get();
+            offsets[i] = (int) recordsStart + index.get();
+            lengths[i] = index.get();
+            if (classNames[i] < 0 || classNames[i] >= stringCount || offsets[i] < recordsStart || lengths[i] < 4 || (long) offsets[i] + lengths[i] > mapped.limit())
+                throw new IOException("Corrupt library hierarchy cache file: " + file);
+        }
+
+        return new CachedLibrary(mapped, stringOffsets, (int) stringsStart, classNames, offsets, lengths);
+    }
+
+    @Override
+    public List<String> getClasses() {
+        return classes;
+    }
+
+    /**
+     * Writes the summary of the given class as a class file, with only the declarations of the class and minimal bouncer bodies.
+     *
+     * @param cls The class identifier name.
+     * @return Returns the bytes of the class file, or null if the library does not contain the class.
+     */
+    @Override
+    public byte[] read(final String cls) {
+        final ClassWriter classWriter = new ClassWriter(0);
+        return accept(cls, classWriter, 0) ? classWriter.toByteArray() : null;
+    }
+
+    @Override
+    public boolean accept(final String cls, final ClassVisitor visitor, final int parsingOptions) {
+        final Integer position = positions.get(cls);
+        if (position == null)
+            return false;
+
+        final ByteBuffer record = data.duplicate();
+        record.position(offsets[position]);
+        if (record.getInt() == CLASS_FILE) {
+            final byte[] bytes = new byte[lengths[position] - 4];
+            record.get(bytes);
+            new ClassReader(bytes).accept(visitor, parsingOptions);
+            return true;
+        }
+
+        final int access = record.getInt();
+        final String name = string(record.getInt());
+        final String superName = string(record.getInt());
+        final String signature = string(record.getInt());
+        final String[] interfaces = new String[record.getInt()];
+        for (int i = 0; i < interfaces.length; i++) {
+            interfaces[i] = string(record.getInt());
+        }
+        visitor.visit(Opcodes.V1_8, access, name, signature, superName, interfaces);
+
+        final int methodCount = record.getInt();
+        for (int i = 0; i < methodCount; i++) {
+            final int methodAccess = record.getInt();
+            final String methodName = string(record.getInt());
+            final String methodDesc = string(record.getInt());
+            final String methodSignature = string(record.getInt());
+            final int targetName = record.getInt();
+            final MethodVisitor methodVisitor = visitor.visitMethod(methodAccess, methodName, methodDesc, methodSignature, null);
+            if (targetName != NONE) {
+                final String targetDesc = string(record.getInt());
+                if (methodVisitor != null) {
+                    visitBouncer(methodVisitor, (access & Opcodes.ACC_INTERFACE) != 0, name, methodDesc, string(targetName), targetDesc);
+                }
+            }
+            if (methodVisitor != null) {
+                methodVisitor.visitEnd();
+            }
+        }
+        visitor.visitEnd();
+        return true;
+    }
+
+    /**
+     * Visits the body of a bouncer which loads 'this' and its arguments, and returns the result of invoking its target.
+     * This is the shape {@link MethodShape#findBouncerTarget(SymbolTable)} recognises the target of a bouncer by.
+     *
+     * @param methodVisitor The visitor of the bouncer.
+     * @param isInterface If the owner of the bouncer is an interface.
+     * @param owner The owner of the bouncer and its target.
+     * @param desc The descriptor of the bouncer.
+     * @param targetName The name of the target.
+     * @param targetDesc The descriptor of the target.
+     */
+    private static void visitBouncer(final MethodVisitor methodVisitor, final boolean isInterface, final String owner, final String desc, final String targetName, final String targetDesc) {
+        methodVisitor.visitCode();
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+        int var = 1;
+        for (Type argument : Type.getArgumentTypes(desc)) {
+            methodVisitor.visitVarInsn(argument.getOpcode(Opcodes.ILOAD), var);
+            var += argument.getSize();
+        }
+        methodVisitor.visitMethodInsn(isInterface ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL, owner, targetName, targetDesc, isInterface);
+        methodVisitor.visitInsn(Type.getReturnType(desc).getOpcode(Opcodes.IRETURN));
+        methodVisitor.visitMaxs(0, 0);
+    }
+
+    private String string(final int index) {
+        if (index == NONE)
+            return null;
+
+        String string = strings[index];
+        if (string == null) {
+            final byte[] bytes = new byte[stringOffsets[index + 1] - stringOffsets[index]];
+            final ByteBuffer stringData = data.duplicate();
+            stringData.position(stringsStart + stringOffsets[index]);
+            stringData.get(bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+            strings[index] = string;
+        }
+        return string;
+    }
+
+    @Override
+    public void close() {
+        // The mapping is released once the buffer is no longer reachable.
+    }
+
+    /**
+     * Collects the summaries of the classes of a library and writes them as a hierarchy cache file.
+     */
+    static final class Writer {
+        private final SymbolTable symbols = new SymbolTable();
+        private final Map<String, Integer> stringIndices = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private final Map<String, byte[]> records = new LinkedHashMap<>();
+
+        /**
+         * Adds the summary of a class, unless a class with the same name was added already.
+         * A class file that can not be parsed is stored as is, so that parsing it fails the same way
+         * as without the cache once the class is actually requested.
+         *
+         * @param cls The class identifier name.
+         * @param data The bytes of the class file.
+         */
+        void add(final String cls, final byte[] data) {
+            if (records.containsKey(cls))
+                return;
+
+            final Summary summary = new Summary();
+            try {
+                new ClassReader(data).accept(summary, ClassReader.SKIP_FRAMES);
+            } catch (RuntimeException e) {
+                records.put(cls, ByteBuffer.allocate(4 + data.length).putInt(CLASS_FILE).put(data).array());
+                return;
+            }
+            records.put(cls, summary.toRecord());
+        }
+
+        /**
+         * Writes the hierarchy cache file with the added classes, in the order they were added.
+         *
+         * @param out The stream the cache file is written to.
+         * @throws IOException Throws an IOException if the file could not be written.
+         */
+        void write(final OutputStream out) throws IOException {
+            for (String cls : records.keySet()) {
+                indexOf(cls);
+            }
+
+            final ByteArrayOutputStream body = new ByteArrayOutputStream();
+            final DataOutputStream dataOut = new DataOutputStream(body);
+            dataOut.writeInt(strings.size());
+            dataOut.writeInt(records.size());
+
+            final List<byte[]> encoded = new ArrayList<>(strings.size());
+            int stringOffset = 0;
+            dataOut.writeInt(stringOffset);
+            for (String string : strings) {
+                final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                encoded.add(bytes);
+                stringOffset += bytes.length;
+                dataOut.writeInt(stringOffset);
+            }
+
+            int offset = 0;
+            for (Map.Entry<String, byte[]> entry : records.entrySet()) {
+                dataOut.writeInt(indexOf(entry.getKey()));
+                dataOut.writeInt(offset);
+                dataOut.writeInt(entry.getValue().length);
+                offset += entry.getValue().length;
+            }
+
+            for (byte[] bytes : encoded) {
+                dataOut.write(bytes);
+            }
+            for (byte[] record : records.values()) {
+                dataOut.write(record);
+            }
+            dataOut.flush();
+
+            final CRC32 checksum = new CRC32();
+            final byte[] bytes = body.toByteArray();
+            checksum.update(bytes, 0, bytes.length);
+            final DataOutputStream fileOut = new DataOutputStream(out);
+            fileOut.writeInt(MAGIC);
+            fileOut.writeInt(VERSION);
+            fileOut.writeInt((int) checksum.getValue());
+            fileOut.write(bytes);
+            fileOut.flush();
+        }
+
+        private int indexOf(final String string) {
+            if (string == null)
+                return NONE;
+
+            final Integer known = stringIndices.get(string);
+            if (known != null)
+                return known;
+
+            stringIndices.put(string, strings.size());
+            strings.add(string);
+            return strings.size() - 1;
+        }
+
+        /**
+         * Records the summary of a single class as a flat list of ints while its class file is read.
+         */
+        private final class Summary extends ClassVisitor {
+            private final List<MethodShape> methods = new ArrayList<>();
+            private int[] values = new int[16];
+            private int size;
+            private String name;
+
+            private Summary() {
+                super(Opcodes.ASM9);
+            }
+
+            @Override
+            public void visit(final int version, final int access, final String name, final String signature, final String superName, final String[] interfaces) {
+                this.name = name;
+                add(SUMMARY);
+                add(access);
+                add(indexOf(name));
+                add(indexOf(superName));
+                add(indexOf(signature));
+                add(interfaces == null ? 0 : interfaces.length);
+                if (interfaces != null) {
+                    for (String interfaceName : interfaces) {
+                        add(indexOf(interfaceName));
+                    }
+                }
+            }
+
+            @Override
+            public MethodVisitor visitMethod(final int access, final String name, final String descriptor, final String signature, final String[] exceptions) {
+                final boolean recording = MutableMethodInfo.isBouncerCandidate(access);
+                final MethodShape method = new MethodShape(this.name, access, name, descriptor, signature, recording);
+                methods.add(method);
+                return recording ? method : null;
+            }
+
+            private void add(final int value) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size++] = value;
+            }
+
+            private byte[] toRecord() {
+                add(methods.size());
+                for (MethodShape method : methods) {
+                    add(method.getAccess());
+                    add(indexOf(method.getName()));
+                    add(indexOf(method.getDesc()));
+                    add(indexOf(method.getSignature()));
+                    final MutableMethodReferenceInfo target = MutableMethodInfo.isBouncerCandidate(method.getAccess()) ? method.findBouncerTarget(symbols) : null;
+                    if (target == null) {
+                        add(NONE);
+                    } else {
+                        add(indexOf(target.getName()));
+                        add(indexOf(target.getDesc()));
+                    }
+                }
+
+                final ByteBuffer record = ByteBuffer.allocate(size * 4);
+                record.asIntBuffer().put(values, 0, size);
+                return record.array();
+            }
+        }
+    }
+}
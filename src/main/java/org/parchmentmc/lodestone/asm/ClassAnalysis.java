@@ -0,0 +1,47 @@
+package org.parchmentmc.lodestone.asm;
+
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * The analysis of a single class by a {@link ClassAnalysisPass}. An analysis is a visitor that passes every visit on
+ * to the next visitor, which implementations do by calling the super methods. To look at the instructions of a method,
+ * the visitor returned by {@link #visitMethod(int, String, String, String, String[])} of the super class is wrapped,
+ * which may be null if no other visitor needs the instructions.
+ *
+ * @param <T> The type of the result of the analysis.
+ */
+public abstract class ClassAnalysis<T> extends ClassVisitor {
+
+    /**
+     * Main Constructor
+     *
+     * @param next The visitor every visit is passed on to.
+     */
+    protected ClassAnalysis(final ClassVisitor next) {
+        super(Opcodes.ASM9, next);
+    }
+
+    /**
+     * Returns the result of the analysis, once the whole class has been visited.
+     *
+     * @return Returns the result of the analysis, may be null.
+     */
+    public abstract T getResult();
+
+    /**
+     * A method visitor which passes every visit on to the next visitor, to be extended by analyses that look at instructions.
+     */
+    protected static class MethodAnalysis extends MethodVisitor {
+
+        /**
+         * Main Constructor
+         *
+         * @param next The visitor every visit is passed on to, may be null.
+         */
+        protected MethodAnalysis(final MethodVisitor next) {
+            super(Opcodes.ASM9, next);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.parchmentmc.lodestone.asm;
+
+import org.objectweb.asm.ClassVisitor;
+
+/**
+ * An analysis of class files which runs in the same scan over a class file that the {@link CodeTree} parses the class with.
+ * Every registered pass chains its own visitor in front of the parser, so any number of passes only ever read a class file once.
+ * The result of a pass is kept with the metadata of the class, see {@link MutableClassInfo#getAnalysis(ClassAnalysisPass)}.
+ * <p>
+ * Passes are shared by all classes and may be used from several threads at once, the analyses they begin are not.
+ * Library classes may be read from the library hierarchy cache, which only keeps the method declarations and the
+ * bodies of possible bouncers, see {@link LibraryHierarchyCache}.
+ *
+ * @param <T> The type of the result of the analysis of a class.
+ */
+public interface ClassAnalysisPass<T> {
+
+    /**
+     * Begins the analysis of a single class.
+     *
+     * @param next The visitor every visit must be passed on to, see {@link ClassAnalysis}.
+     * @param library If the class comes from a library.
+     * @return Returns the analysis of the class, or null if the class is not analysed.
+     */
+    ClassAnalysis<T> begin(ClassVisitor next, boolean library);
+}
@@ -0,0 +1,55 @@
+package org.parchmentmc.lodestone.asm;
+
+import java.io.IOException;
+
+/**
+ * Holds the class files of loaded game classes until they are parsed.
+ * Implementations must allow classes to be read and removed from several threads at once.
+ */
+public interface ClassByteStore {
+
+    /**
+     * Stores the class file of the given class.
+     * 
+     * @param cls The class identifier name.
+     * @param data The bytes of the class file, which the store takes ownership of.
+     */
+    void put(String cls, byte[] data);
+
+    /**
+     * Stores the class file of the given class, which can be read through the given reader as long as the code tree is open.
+     * A store may keep the reader instead of the bytes, reading the class file again each time it is requested.
+     * The default implementation reads the class file right away and stores its bytes.
+     * 
+     * @param cls The class identifier name.
+     * @param size The size of the class file in bytes, or -1 if it is not known.
+     * @param reader Reads the class file, from several threads at once if needed.
+     * @throws IOException Throws an IOException if the class file was read right away and that failed.
+     */
+    default void put(final String cls, final long size, final ClassFileReader reader) throws IOException {
+        put(cls, reader.read());
+    }
+
+    /**
+     * Reads the class file of the given class.
+     * 
+     * @param cls The class identifier name.
+     * @return Returns the bytes of the class file, or null if the class is not stored.
+     */
+    byte[] get(String cls);
+
+    /**
+     * Drops the class file of the given class, once it is no longer needed.
+     * 
+     * @param cls The class identifier name.
+     */
+    void remove(String cls);
+
+    /**
+     * Reads a class file from the file it was loaded from.
+     */
+    @FunctionalInterface
+    interface ClassFileReader {
+        byte[] read() throws IOException;
+    }
+}
@@ -0,0 +1,256 @@
+package org.parchmentmc.lodestone.asm;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The class hierarchy of a {@link CodeTree} as dense integer ids and primitive adjacency arrays.
+ * A class gets its id the first time it is requested, after all of its known super types got theirs, so the
+ * id of a class is always greater than the ids of its super types. The interfaces of a class are stored as a
+ * contiguous range of ids in declaration order, missing super types are left out.
+ * <p>
+ * Every class also carries a Bloom filter of the method keys declared or bounced to in the class and all of its
+ * ancestors, so walks for a method can skip any part of the hierarchy that can not know the method at all.
+ * <p>
+ * Ids are assigned by one thread at a time. Lookups by id are not synchronized, so ids have to be handed to
+ * other threads through a happens-before edge, like submitting a task to an executor.
+ */
+final class ClassHierarchy {
+    /**
+     * The id of a class that is not loaded.
+     */
+    static final int MISSING = -1;
+    private static final int ASSIGNING = -2;
+    private static final int FILTER_WORDS = 8;
+    private static final int FILTER_MASK = FILTER_WORDS * Long.SIZE - 1;
+
+    private final CodeTree codeTree;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private int size;
+    private MutableClassInfo[] classes = new MutableClassInfo[64];
+    private int[] superIds = new int[64];
+    private int[] interfaceStarts = new int[65];
+    private int[] interfaceIds = new int[64];
+    private long[] keyFilters = new long[64 * FILTER_WORDS];
+
+    /**
+     * Main Constructor
+     *
+     * @param codeTree The code tree the classes are requested from.
+     */
+    ClassHierarchy(final CodeTree codeTree) {
+        this.codeTree = codeTree;
+    }
+
+    /**
+     * Returns the id of the given class, assigning ids to the class and all of its not yet known super types first.
+     * The hierarchy is walked with an explicit stack, so deep hierarchies do not exhaust the call stack.
+     *
+     * @param className The name of the class.
+     * @return Returns the id of the class, or {@link #MISSING} if the class is not loaded.
+     */
+    synchronized int idOf(final String className) {
+        final Integer known = ids.get(className);
+        if (known != null)
+            return known == ASSIGNING ? MISSING : known;
+
+        final MutableClassInfo info = codeTree.getClassMetadataFor(className);
+        if (info == null) {
+            ids.put(className, MISSING);
+            return MISSING;
+        }
+
+        MutableClassInfo[] stack = new MutableClassInfo[16];
+        int[] nextParents = new int[16];
+        int depth = 0;
+        stack[0] = info;
+        ids.put(className, ASSIGNING);
+        while (depth >= 0) {
+            final MutableClassInfo current = stack[depth];
+            final List<String> interfaces = current.getInterfaces();
+            final int parent = nextParents[depth]++;
+            if (parent <= interfaces.size()) {
+                final String parentName = parent == 0 ? current.getSuperName() : interfaces.get(parent - 1);
+                if (ids.containsKey(parentName))
+                    continue;
+
+                final MutableClassInfo parentInfo = codeTree.getClassMetadataFor(parentName);
+                if (parentInfo == null) {
+                    ids.put(parentName, MISSING);
+                    continue;
+                }
+
+                ids.put(parentName, ASSIGNING);
+                if (++depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                    nextParents = Arrays.copyOf(nextParents, depth * 2);
+                }
+                stack[depth] = parentInfo;
+                nextParents[depth] = 0;
+            } else {
+                ids.put(current.getName(), assign(current));
+                stack[depth--] = null;
+            }
+        }
+        return ids.get(className);
+    }
+
+    /**
+     * Stores a class whose known super types all have their ids.
+     *
+     * @param info The class metadata.
+     * @return Returns the id of the class.
+     */
+    private int assign(final MutableClassInfo info) {
+        final int id = size++;
+        if (id == classes.length) {
+            classes = Arrays.copyOf(classes, id * 2);
+            superIds = Arrays.copyOf(superIds, id * 2);
+            interfaceStarts = Arrays.copyOf(interfaceStarts, id * 2 + 1);
+            keyFilters = Arrays.copyOf(keyFilters, id * 2 * FILTER_WORDS);
+        }
+
+        int edges = interfaceStarts[id];
+        if (edges + info.getInterfaces().size() > interfaceIds.length) {
+            interfaceIds = Arrays.copyOf(interfaceIds, Math.max(interfaceIds.length * 2, edges + info.getInterfaces().size()));
+        }
+
+        for (String interfaceName : info.getInterfaces()) {
+            final int interfaceId = knownId(interfaceName);
+            if (interfaceId != MISSING) {
+                interfaceIds[edges++] = interfaceId;
+            }
+        }
+
+        classes[id] = info;
+        superIds[id] = knownId(info.getSuperName());
+        interfaceStarts[id + 1] = edges;
+        fillKeyFilter(id, info);
+        return id;
+    }
+
+    /**
+     * Fills the key filter of a class with the keys of its methods and bouncer targets, and the key filters of its super types.
+     *
+     * @param id The id of the class.
+     * @param info The class metadata.
+     */
+    private void fillKeyFilter(final int id, final MutableClassInfo info) {
+        final int offset = id * FILTER_WORDS;
+        for (MutableMethodInfo method : info.getMethods().values()) {
+            addToKeyFilter(offset, method.getMethod().getKey());
+            if (method.getBouncer() != null) {
+                addToKeyFilter(offset, method.getBouncer().getTarget().getKey());
+            }
+        }
+
+        if (superIds[id] != MISSING) {
+            mergeKeyFilter(offset, superIds[id] * FILTER_WORDS);
+        }
+        for (int index = interfaceStarts[id]; index < interfaceStarts[id + 1]; index++) {
+            mergeKeyFilter(offset, interfaceIds[index] * FILTER_WORDS);
+        }
+    }
+
+    private void addToKeyFilter(final int offset, final MethodKey key) {
+        final int hash = mix(key.hashCode());
+        setBit(offset, hash);
+        setBit(offset, hash >>> 16);
+    }
+
+    private void setBit(final int offset, final int bit) {
+        keyFilters[offset + ((bit & FILTER_MASK) >>> 6)] |= 1L << bit;
+    }
+
+    private void mergeKeyFilter(final int offset, final int from) {
+        for (int word = 0; word < FILTER_WORDS; word++) {
+            keyFilters[offset + word] |= keyFilters[from + word];
+        }
+    }
+
+    private boolean hasBit(final int offset, final int bit) {
+        return (keyFilters[offset + ((bit & FILTER_MASK) >>> 6)] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Spreads the bits of a hash, so the two probes of the key filters are independent of each other.
+     *
+     * @param hash The hash of the method key.
+     * @return Returns the spread hash.
+     */
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        return hash ^ (hash >>> 16);
+    }
+
+    private int knownId(final String className) {
+        final Integer id = ids.get(className);
+        return id == null || id < 0 ? MISSING : id;
+    }
+
+    /**
+     * Returns the number of classes with an id, which are numbered from 0.
+     *
+     * @return Returns the number of classes with an id.
+     */
+    int size() {
+        return size;
+    }
+
+    MutableClassInfo get(final int id) {
+        return classes[id];
+    }
+
+    /**
+     * Returns the id of the super class of the given class.
+     *
+     * @param id The id of the class.
+     * @return Returns the id of the super class, or {@link #MISSING} if it is not loaded.
+     */
+    int superId(final int id) {
+        return superIds[id];
+    }
+
+    /**
+     * Returns the index of the first interface of the given class in {@link #interfaceId(int)}.
+     *
+     * @param id The id of the class.
+     * @return Returns the index of the first interface of the class.
+     */
+    int interfacesStart(final int id) {
+        return interfaceStarts[id];
+    }
+
+    /**
+     * Returns the index after the last interface of the given class in {@link #interfaceId(int)}.
+     *
+     * @param id The id of the class.
+     * @return Returns the index after the last interface of the class.
+     */
+    int interfacesEnd(final int id) {
+        return interfaceStarts[id + 1];
+    }
+
+    int interfaceId(final int index) {
+        return interfaceIds[index];
+    }
+
+    /**
+     * Checks if the given class or any of its ancestors may declare a method with the given key, or a bouncer to it.
+     * False positives are possible, false negatives are not.
+     *
+     * @param id The id of the class.
+     * @param key The method key.
+     * @return Returns false if neither the class nor any of its ancestors knows the method.
+     */
+    boolean mayKnow(final int id, final MethodKey key) {
+        final int offset = id * FILTER_WORDS;
+        final int hash = mix(key.hashCode());
+        return hasBit(offset, hash) && hasBit(offset, hash >>> 16);
+    }
+}
@@ -0,0 +1,149 @@
+package org.parchmentmc.lodestone.asm;
+
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects what a {@link MutableClassInfo} is built from in a single pass over a class file, without materialising a tree of the class.
+ * Instructions are only recorded for methods that can be bouncers or record getters, see {@link MethodShape}.
+ * Library classes skip record getter detection, so only their possible bouncers are visited, unless an analysis pass asks for more.
+ * The results of the analysis passes that ran in the same pass are handed over as well, see {@link ClassAnalysisPass}.
+ */
+final class ClassShape extends ClassVisitor {
+
+    private final boolean library;
+    private String name;
+    private String superName;
+    private String[] interfaces;
+    private int access;
+    private String signature;
+    private boolean isRecord;
+    private final List<FieldShape> fields = new ArrayList<>();
+    private final List<MethodShape> methods = new ArrayList<>();
+    private Set<String> lambdas = Collections.emptySet();
+    private Map<ClassAnalysisPass<?>, Object> analyses;
+
+    /**
+     * Main Constructor
+     *
+     * @param library If the visited class comes from a library.
+     */
+    ClassShape(final boolean library) {
+        super(Opcodes.ASM9);
+        this.library = library;
+    }
+
+    @Override
+    public void visit(final int version, final int access, final String name, final String signature, final String superName, final String[] interfaces) {
+        this.access = access;
+        this.name = name;
+        this.signature = signature;
+        this.superName = superName;
+        this.interfaces = interfaces;
+        this.isRecord = "java/lang/Record".equals(superName);
+    }
+
+    @Override
+    public FieldVisitor visitField(final int access, final String name, final String descriptor, final String signature, final Object value) {
+        fields.add(new FieldShape(access, name, descriptor, signature));
+        return null;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(final int access, final String name, final String descriptor, final String signature, final String[] exceptions) {
+        final boolean recording = MutableMethodInfo.isBouncerCandidate(access) || (!library && isRecord && MutableMethodInfo.isGetterCandidate(access, descriptor));
+        final MethodShape method = new MethodShape(this.name, access, name, descriptor, signature, recording);
+        methods.add(method);
+        return recording ? method : null;
+    }
+
+    boolean isLibrary() {
+        return library;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getSuperName() {
+        return superName;
+    }
+
+    String[] getInterfaces() {
+        return interfaces;
+    }
+
+    int getAccess() {
+        return access;
+    }
+
+    String getSignature() {
+        return signature;
+    }
+
+    List<FieldShape> getFields() {
+        return fields;
+    }
+
+    List<MethodShape> getMethods() {
+        return methods;
+    }
+
+    /**
+     * Returns the keys of the methods of the class that implement a lambda expression of the class itself.
+     *
+     * @return Returns the method keys of the lambda methods.
+     */
+    Set<String> getLambdas() {
+        return lambdas;
+    }
+
+    void setLambdas(final Set<String> lambdas) {
+        this.lambdas = lambdas;
+    }
+
+    /**
+     * Keeps the result of an analysis pass that ran over the class.
+     *
+     * @param pass The analysis pass.
+     * @param result The result of the analysis of the class, may be null.
+     */
+    void addAnalysis(final ClassAnalysisPass<?> pass, final Object result) {
+        if (analyses == null) {
+            analyses = new HashMap<>();
+        }
+        analyses.put(pass, result);
+    }
+
+    /**
+     * Returns the results of the analysis passes that ran over the class.
+     *
+     * @return Returns the analysis results keyed by pass, or null if no pass analysed the class.
+     */
+    Map<ClassAnalysisPass<?>, Object> getAnalyses() {
+        return analyses;
+    }
+
+    static final class FieldShape {
+        final int access;
+        final String name;
+        final String desc;
+        final String signature;
+
+        private FieldShape(final int access, final String name, final String desc, final String signature) {
+            this.access = access;
+            this.name = name;
+            this.desc = desc;
+            this.signature = signature;
+        }
+    }
+}
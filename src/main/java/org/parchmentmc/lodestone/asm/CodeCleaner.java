@@ -2,15 +2,19 @@ package org.parchmentmc.lodestone.asm;
 
 import org.objectweb.asm.Opcodes;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
+import java.util.Optional;
 import java.util.Set;
-import java.util.TreeSet;
-import java.util.function.Consumer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 public class CodeCleaner {
 
@@ -19,6 +23,41 @@ public class CodeCleaner {
      */
     private final CodeTree codeTree;
 
+    /**
+     * The class hierarchy the cleaned classes are walked through, see {@link CodeTree#getHierarchy()}.
+     */
+    private ClassHierarchy hierarchy;
+
+    /**
+     * The method tables of the cleaned classes, indexed by class id.
+     */
+    private MethodTable[] methodTables = new MethodTable[0];
+
+    /**
+     * The shared override sets of the cleaned methods, each distinct set is only kept once.
+     */
+    private final OverrideSet.Interner overrideSets = new OverrideSet.Interner();
+
+    /**
+     * Counts the changes to override sets of cleaned methods, which outdate the inherited overrides in the method tables.
+     * It is only changed while abstract methods are resolved, which never happens concurrently.
+     */
+    private int overridesVersion;
+
+    /**
+     * The buffers used to walk the hierarchy when collecting the classes to clean, indexed by class id or depth.
+     * They are kept between cleaned classes and only grow with the hierarchy, see {@link #collectUnresolved(Collection)}.
+     */
+    private int[] order = new int[0];
+    private int[] stack = new int[0];
+    private int[] nextParents = new int[0];
+
+    /**
+     * The walk each class was last visited in, indexed by class id, so the visited classes do not need to be cleared between walks.
+     */
+    private int[] visited = new int[0];
+    private int walk;
+
     /**
      * Main Constructor for CodeCleaner
      * 
@@ -40,127 +79,294 @@ public class CodeCleaner {
     }
 
     /**
-     * Cleans up the metadata for a class.
+     * Cleans up the metadata for a class, after cleaning up all of its not yet cleaned super types.
      * The method does this by resolving bouncer methods and resolving abstract methods.
      * This method also resolves record classes.
      * 
      * @param className The name of the class being cleaned.
      */
     private void doCleanClass(final String className) {
-        MutableClassInfo info = codeTree.getClassMetadataFor(className);
-        if (info == null || info.isResolved())
-            return;
+        for (int id : collectUnresolved(Collections.singletonList(className))) {
+            final MutableClassInfo info = hierarchy.get(id);
+            resolveMethods(id);
 
-        if (info.getSuperName() != null)
-            doCleanClass(info.getSuperName());
+            if (!info.isAbstract()) {
+                resolveAbstract(id, null);
+            }
 
-        if (info.getInterfaces() != null && !info.getInterfaces().isEmpty())
-            for (String interfaceClassName : info.getInterfaces())
-                doCleanClass(interfaceClassName);
+            resolveRecord(info);
 
-        if (info.getMethods() != null && !info.getMethods().isEmpty()) {
-            //Synthetic Bouncers!
-            for (MutableMethodInfo method : info.getMethods().values()) {
-                if (method.getBouncer() != null) {
-                    MutableMethodReferenceInfo owner = doWalkBouncers(method, info.getName());
-                    if (owner != null && !owner.getOwner().equals(info.getName()))
-                        method.getBouncer().setOwner(owner);
-                }
+            info.setResolved(true);
+        }
+    }
+
+    /**
+     * Cleans up the metadata for the given classes and all of their not yet cleaned super types on the given pool,
+     * with the same result as cleaning them one by one through {@link #cleanClass(MutableClassInfo)}.
+     * <p>
+     * The classes are grouped into levels by the depth of their super type hierarchy, and the methods of all classes of a level
+     * are resolved concurrently once every class of the levels above is resolved. Abstract methods are then resolved in the order
+     * {@link #cleanClass(MutableClassInfo)} would clean the classes in. Resolving abstract methods can extend the overrides of
+     * methods in super types, which the classes cleaned after it would have seen. So every class whose methods may have read
+     * such an override is resolved again right before its abstract methods are, see {@link #mayReadChangedOverrides(int, Map)}.
+     * Those are rare, so most classes keep the methods resolved concurrently.
+     * 
+     * @param classes The mutable class metadata of the classes being cleaned.
+     * @param pool The pool the classes of each level are resolved on.
+     */
+    public void cleanClasses(final Collection<MutableClassInfo> classes, final ForkJoinPool pool) {
+        final List<String> classNames = new ArrayList<>(classes.size());
+        classes.forEach(classMetadata -> classNames.add(classMetadata.getName()));
+        final int[] order = collectUnresolved(classNames);
+
+        //Any super type that is not part of the order is either resolved already or missing, both count as level 0.
+        final int[] depths = new int[hierarchy.size()];
+        final List<List<Integer>> levels = new ArrayList<>();
+        for (int id : order) {
+            int depth = 0;
+            final int superId = hierarchy.superId(id);
+            if (superId != ClassHierarchy.MISSING) {
+                depth = depths[superId];
+            }
+            for (int index = hierarchy.interfacesStart(id); index < hierarchy.interfacesEnd(id); index++) {
+                depth = Math.max(depth, depths[hierarchy.interfaceId(index)]);
             }
+            depths[id] = depth + 1;
+            if (levels.size() == depth) {
+                levels.add(new ArrayList<>());
+            }
+            levels.get(depth).add(id);
+        }
 
-            //Resolve the 'root' owner of each method.
-            for (MutableMethodInfo method : info.getMethods().values()) {
-                method.setOverrides(findOverrides(method, info.getName()));
-                method.setParent(doFindFirstOverride(method, info.getName()));
+        for (List<Integer> level : levels) {
+            pool.submit(() -> level.parallelStream().forEach(id -> {
+                resolveMethods(id);
+                resolveRecord(hierarchy.get(id));
+            })).join();
+        }
+
+        final Map<Integer, Set<MethodKey>> changes = new HashMap<>();
+        for (int id : order) {
+            final MutableClassInfo info = hierarchy.get(id);
+            if (mayReadChangedOverrides(id, changes)) {
+                resolveMethodsAgain(id, changes);
             }
+
+            if (!info.isAbstract()) {
+                resolveAbstract(id, changes);
+            }
+
+            info.setResolved(true);
         }
+    }
+
+    /**
+     * Checks if resolving the methods of the given class may have read any of the changed overrides.
+     * Resolving the methods of a class only reads the overrides of methods in its super types, and only of methods
+     * with the key of one of its own methods, or with the key of a bouncer in the class or one of its super types.
+     * 
+     * @param classId The id of the class.
+     * @param changes The keys of the methods whose overrides changed, keyed by the id of their class.
+     * @return Returns true if the methods of the class have to be resolved again.
+     */
+    private boolean mayReadChangedOverrides(final int classId, final Map<Integer, Set<MethodKey>> changes) {
+        if (changes.isEmpty())
+            return false;
+
+        //The closure starts with the class itself, whose overrides are only read once it is resolved.
+        final int[] ancestors = getAncestors(classId);
+        for (int index = 1; index < ancestors.length; index++) {
+            final Set<MethodKey> keys = changes.get(ancestors[index]);
+            if (keys == null)
+                continue;
 
-        if (!info.isAbstract()) {
-            resolveAbstract(info);
+            for (MethodKey key : keys) {
+                if (mayReadOverrides(classId, ancestors, key))
+                    return true;
+            }
         }
+        return false;
+    }
 
-        resolveRecord(info);
+    private boolean mayReadOverrides(final int classId, final int[] ancestors, final MethodKey key) {
+        final Map<MethodKey, MutableMethodInfo> methods = hierarchy.get(classId).getMethods();
+        if (methods != null && methods.containsKey(key))
+            return true;
 
-        info.setResolved(true);
+        for (int id : ancestors) {
+            final Map<MethodKey, MutableMethodInfo> ancestorMethods = hierarchy.get(id).getMethods();
+            final MutableMethodInfo method = ancestorMethods != null ? ancestorMethods.get(key) : null;
+            if (method != null && method.getBouncer() != null)
+                return true;
+        }
+        return false;
     }
 
     /**
-     * Recursively walks up the class hierarchy to find the final implementation of a method by following bouncer methods.
+     * Resolves the methods of a class again, recording every method whose overrides change as a result.
      * 
-     * @param methodMetadata The mutable method metadata.
-     * @param className The name of the class that pertains to the method.
-     * @return Returns a mutable method reference metadata.
+     * @param classId The id of the class.
+     * @param changes The keys of the methods whose overrides changed, keyed by the id of their class.
      */
-    private MutableMethodReferenceInfo doWalkBouncers(final MutableMethodInfo methodMetadata, String className) {
-        final MutableClassInfo classMetadata = codeTree.getClassMetadataFor(className);
-        if (!classMetadata.getMethods().isEmpty()) {
-            MutableMethodInfo ownerMethodMetadata = classMetadata.getMethods().get(methodMetadata.getMethod().getName() + methodMetadata.getMethod().getDesc());
-
-            if (ownerMethodMetadata != null && (
-                    (!ownerMethodMetadata.isFinal() && !ownerMethodMetadata.isPrivate()) ||
-                            //We ignore all final or private methods, they can not be overridden so no bouncer.
-                            classMetadata.getName()
-                                    .equals(methodMetadata.getMethod().getOwner()) //We always execute this branch if the current method is owned by the current class (first level recursion).
-            )) {
-                if (ownerMethodMetadata.getBouncer() != null) {
-                    final Set<MutableMethodReferenceInfo> overrides = findOverrides(
-                            ownerMethodMetadata,
-                            classMetadata.getName()
-                    );
-                    if (overrides.isEmpty()) {
-                        return new MutableMethodReferenceInfo(
-                                classMetadata.getName(),
-                                ownerMethodMetadata.getMethod().getName(),
-                                ownerMethodMetadata.getMethod().getDesc(),
-                                ownerMethodMetadata.getSignature()
-                        );
-                    } else {
-                        return overrides.iterator().next();
-                        //We pick the first regardless of how many there are in there.
-                        //Most likely it is the one from the super class, but it is actually not that relevant.
+    private void resolveMethodsAgain(final int classId, final Map<Integer, Set<MethodKey>> changes) {
+        final Map<MethodKey, MutableMethodInfo> methods = hierarchy.get(classId).getMethods();
+        if (methods == null || methods.isEmpty())
+            return;
+
+        final List<Set<MutableMethodReferenceInfo>> previous = new ArrayList<>(methods.size());
+        for (MutableMethodInfo method : methods.values()) {
+            previous.add(method.getOverrides());
+        }
+
+        resolveMethods(classId);
+
+        int index = 0;
+        for (MutableMethodInfo method : methods.values()) {
+            //Override sets are interned, so equal sets are the same instance.
+            if (method.getOverrides() != previous.get(index++)) {
+                recordChange(classId, method, changes);
+            }
+        }
+    }
+
+    /**
+     * Records that the overrides of a method changed, which outdates the inherited overrides in the method tables.
+     * 
+     * @param classId The id of the class of the method.
+     * @param method The method whose overrides changed.
+     * @param changes The keys of the methods whose overrides changed, keyed by the id of their class, or null if they are not recorded.
+     */
+    private void recordChange(final int classId, final MutableMethodInfo method, final Map<Integer, Set<MethodKey>> changes) {
+        overridesVersion++;
+        if (changes != null) {
+            changes.computeIfAbsent(classId, id -> new HashSet<>()).add(method.getMethod().getKey());
+        }
+    }
+
+    /**
+     * Collects the given classes and all of their not yet cleaned super types in the order they need to be cleaned in,
+     * each super type before its subclasses, visiting the super class and the interfaces in declaration order.
+     * An explicit stack is used, so deep hierarchies do not exhaust the call stack.
+     * The classes get their ids in the class hierarchy first, and a method table is prepared for every class with an id.
+     * 
+     * @param classNames The names of the classes being cleaned.
+     * @return Returns the ids of the classes that need to be cleaned.
+     */
+    private int[] collectUnresolved(final Collection<String> classNames) {
+        final ClassHierarchy current = codeTree.getHierarchy();
+        if (current != hierarchy) {
+            //The method tables are only valid for the hierarchy they were filled from.
+            hierarchy = current;
+            methodTables = new MethodTable[0];
+            visited = new int[0];
+        }
+
+        final int[] roots = new int[classNames.size()];
+        int rootCount = 0;
+        for (String className : classNames) {
+            final int id = hierarchy.idOf(className);
+            if (id != ClassHierarchy.MISSING) {
+                roots[rootCount++] = id;
+            }
+        }
+
+        if (methodTables.length < hierarchy.size()) {
+            final int known = methodTables.length;
+            methodTables = Arrays.copyOf(methodTables, hierarchy.size());
+            for (int id = known; id < methodTables.length; id++) {
+                methodTables[id] = new MethodTable();
+            }
+        }
+
+        if (order.length < hierarchy.size()) {
+            final int size = Math.max(hierarchy.size(), order.length * 2);
+            order = new int[size];
+            stack = new int[size];
+            nextParents = new int[size];
+        }
+        if (visited.length < hierarchy.size()) {
+            visited = Arrays.copyOf(visited, order.length);
+        }
+        if (++walk == 0) {
+            //The walk counter wrapped around, so earlier walks could be mistaken for this one.
+            Arrays.fill(visited, 0);
+            walk = 1;
+        }
+
+        final int[] order = this.order;
+        final int[] visited = this.visited;
+        final int[] stack = this.stack;
+        final int[] nextParents = this.nextParents;
+        int orderSize = 0;
+        int depth = -1;
+        for (int root = 0; root < rootCount; root++) {
+            int next = roots[root];
+            while (next != ClassHierarchy.MISSING) {
+                if (visited[next] != walk) {
+                    visited[next] = walk;
+                    if (!hierarchy.get(next).isResolved()) {
+                        stack[++depth] = next;
+                        nextParents[depth] = 0;
                     }
                 }
 
-                for (final MutableMethodInfo ownerMethod : classMetadata.getMethods().values()) {
-                    final MutableMethodReferenceInfo target = ownerMethod.getBouncer() != null ? ownerMethod.getBouncer().getTarget() : null;
-                    if (
-                            target != null &&
-                                    ownerMethodMetadata.getMethod().getName().equals(target.getName()) &&
-                                    ownerMethodMetadata.getMethod().getDesc().equals(target.getDesc())
-                    ) {
-                        if (ownerMethod.getBouncer().getOwner() != null) {
-                            return ownerMethod.getBouncer().getOwner();
-                        }
-
-                        final MutableMethodReferenceInfo newBouncerOwner = doWalkBouncers(
-                                ownerMethod,
-                                classMetadata.getName()
-                        );
-
-                        if (newBouncerOwner != null && !newBouncerOwner.getOwner().equals(classMetadata.getName())) {
-                            ownerMethod.getBouncer().setOwner(newBouncerOwner);
-                            return newBouncerOwner;
-                        }
+                next = ClassHierarchy.MISSING;
+                while (next == ClassHierarchy.MISSING && depth >= 0) {
+                    final int id = stack[depth];
+                    final int parent = nextParents[depth]++;
+                    if (parent == 0) {
+                        next = hierarchy.superId(id);
+                    } else if (hierarchy.interfacesStart(id) + parent - 1 < hierarchy.interfacesEnd(id)) {
+                        next = hierarchy.interfaceId(hierarchy.interfacesStart(id) + parent - 1);
+                    } else {
+                        order[orderSize++] = id;
+                        depth--;
                     }
                 }
             }
         }
+        return Arrays.copyOf(order, orderSize);
+    }
 
-        if (classMetadata.getSuperName() != null) {
-            MutableMethodReferenceInfo ret = doWalkBouncers(methodMetadata, classMetadata.getSuperName());
-            if (ret != null)
-                return ret;
-        }
+    /**
+     * Resolves the bouncer owners, overrides and parents of the methods of a class, whose super types are resolved already.
+     * 
+     * @param id The id of the class.
+     */
+    private void resolveMethods(final int id) {
+        final MutableClassInfo info = hierarchy.get(id);
+        if (info.getMethods() != null && !info.getMethods().isEmpty()) {
+            //Resolve the 'root' owner of each method.
+            for (MutableMethodInfo method : info.getMethods().values()) {
+                final Set<MutableMethodReferenceInfo> overrides = overrideSets.intern(findOverrides(method, id));
+                method.setOverrides(overrides);
+                method.setParent(doFindFirstOverride(method, id));
 
-        if (classMetadata.getInterfaces() != null && !classMetadata.getInterfaces().isEmpty()) {
-            for (String interfaceName : classMetadata.getInterfaces()) {
-                MutableMethodReferenceInfo ret = doWalkBouncers(methodMetadata, interfaceName);
-                if (ret != null)
-                    return ret;
+                //Synthetic Bouncers!
+                if (method.getBouncer() != null) {
+                    MutableMethodReferenceInfo owner = findBouncerOwner(overrides);
+                    method.getBouncer().setOwner(owner != null && !owner.getOwner().equals(info.getName()) ? owner : null);
+                }
             }
         }
+    }
 
-        return null;
+    /**
+     * Finds the final implementation a bouncer method bounces to, which is the first method it overrides.
+     * The overrides of a bouncer already follow the whole bouncer chain above it, and every class keeps the chains
+     * it passes on in its method table, see {@link #findInheritedOverrides(MethodKey, int)}.
+     * So each chain is only walked once per class, and resolving a bouncer never walks the hierarchy itself.
+     * 
+     * @param overrides The overrides of the bouncer method.
+     * @return Returns the method reference of the final implementation, or null if the bouncer does not override any method.
+     */
+    private static MutableMethodReferenceInfo findBouncerOwner(final Set<MutableMethodReferenceInfo> overrides) {
+        if (overrides.isEmpty())
+            return null;
+
+        //We pick the first regardless of how many there are in there.
+        //Most likely it is the one from the super class, but it is actually not that relevant.
+        return overrides.iterator().next();
     }
 
     /**
@@ -168,200 +374,304 @@ public class CodeCleaner {
      * Providing an empty set of method references.
      * 
      * @param methodMetadata The mutable method metadata.
-     * @param ownerName The name of the owning class.
+     * @param ownerId The id of the owning class.
      * @return Returns a Set of method references of overrides.
      */
-    private Set<MutableMethodReferenceInfo> findOverrides(MutableMethodInfo methodMetadata, String ownerName) {
-        return doFindOverrides(methodMetadata, ownerName, new LinkedHashSet<>());
+    private Set<MutableMethodReferenceInfo> findOverrides(MutableMethodInfo methodMetadata, int ownerId) {
+        return doFindOverrides(methodMetadata, ownerId, new LinkedHashSet<>());
     }
 
     /**
      * Used to find the all methods that override the given method within the class hierarchy.
+     * The overrides inherited from the super types are looked up in their method tables, see {@link #findInheritedOverrides(MethodKey, int)}.
      * 
      * @param methodMetadata The mutable method metadata.
-     * @param className The name of the class that the method exists in.
+     * @param classId The id of the class that the method exists in.
      * @param overrides A Set of override method references.
      * @return Returns a Set of method references of overrides.
      */
-    private Set<MutableMethodReferenceInfo> doFindOverrides(MutableMethodInfo methodMetadata, String className, Set<MutableMethodReferenceInfo> overrides) {
-        if (methodMetadata.isStatic() || methodMetadata.isPrivate() || methodMetadata.getMethod().getName().startsWith("<")) {
+    private Set<MutableMethodReferenceInfo> doFindOverrides(MutableMethodInfo methodMetadata, int classId, Set<MutableMethodReferenceInfo> overrides) {
+        if (!isOverridable(methodMetadata)) {
             return overrides;
         }
 
-        final MutableClassInfo classMetadata = codeTree.getClassMetadataFor(className);
-        if (classMetadata == null) {
-            return overrides;
+        final MutableClassInfo classMetadata = hierarchy.get(classId);
+
+        //The method itself is never its own override, so only the bouncers targeting it are followed in its own class.
+        for (MutableMethodInfo ownerMethodMetadata : classMetadata.getBouncersTargeting(methodMetadata.getMethod().getKey())) {
+            doFindOverrides(ownerMethodMetadata, classId, overrides);
         }
 
-        if (classMetadata.getMethods() != null && !classMetadata.getMethods().isEmpty()) {
-            for (MutableMethodInfo ownerMethodMetadata : classMetadata.getMethods().values()) {
-                final MutableMethodReferenceInfo target = ownerMethodMetadata.getBouncer() != null ? ownerMethodMetadata.getBouncer().getTarget() : null;
-                if (target != null &&
-                        methodMetadata.getMethod().getName().equals(target.getName()) &&
-                        methodMetadata.getMethod().getDesc().equals(target.getDesc())) {
-                    doFindOverrides(ownerMethodMetadata, classMetadata.getName(), overrides);
-                }
-            }
+        addInheritedOverrides(methodMetadata.getMethod().getKey(), classId, overrides);
+        return overrides;
+    }
 
-            MutableMethodInfo ownerMethodMetadata = classMetadata.getMethods().get(methodMetadata.getMethod().getName() + methodMetadata.getMethod().getDesc());
-            if (ownerMethodMetadata != null && ownerMethodMetadata != methodMetadata && (
-                    !ownerMethodMetadata.isFinal() && !ownerMethodMetadata.isPrivate()
-            )) {
-                if (ownerMethodMetadata.getOverrides().isEmpty()) {
-                    overrides.add(
-                            new MutableMethodReferenceInfo(
-                                    classMetadata.getName(),
-                                    ownerMethodMetadata.getMethod().getName(),
-                                    ownerMethodMetadata.getMethod().getDesc(),
-                                    ownerMethodMetadata.getSignature()
-                            ));
-                } else {
-                    overrides.addAll(ownerMethodMetadata.getOverrides());
-                }
-            }
+    /**
+     * Adds the overrides inherited from the super class and the interfaces of the given class, in that order.
+     * 
+     * @param key The method key, made up of its name and descriptor.
+     * @param classId The id of the class whose super types are searched.
+     * @param overrides A Set of override method references.
+     */
+    private void addInheritedOverrides(MethodKey key, int classId, Set<MutableMethodReferenceInfo> overrides) {
+        final int superId = hierarchy.superId(classId);
+        if (superId != ClassHierarchy.MISSING) {
+            overrides.addAll(findInheritedOverrides(key, superId));
         }
 
-        if (classMetadata.getSuperName() != null) {
-            doFindOverrides(methodMetadata, classMetadata.getSuperName(), overrides);
+        for (int index = hierarchy.interfacesStart(classId); index < hierarchy.interfacesEnd(classId); index++) {
+            overrides.addAll(findInheritedOverrides(key, hierarchy.interfaceId(index)));
+        }
+    }
+
+    /**
+     * Finds all methods with the given key that a subclass of the given class overrides, walking up from the given class.
+     * The result is kept in the method table of the class and reused until any override set is extended by {@link #resolveAbstract(int)}.
+     * Classes whose ancestor closure does not know the method at all are skipped without a walk, see {@link ClassHierarchy#mayKnow(int, MethodKey)}.
+     * 
+     * @param key The method key, made up of its name and descriptor.
+     * @param classId The id of the class that the walk starts at.
+     * @return Returns the method references of the overrides, in the order they are found.
+     */
+    private Collection<MutableMethodReferenceInfo> findInheritedOverrides(MethodKey key, int classId) {
+        if (!hierarchy.mayKnow(classId, key)) {
+            return Collections.emptySet();
         }
 
-        if (classMetadata.getInterfaces() != null && !classMetadata.getInterfaces().isEmpty()) {
-            for (final String interfaceName : classMetadata.getInterfaces()) {
-                doFindOverrides(methodMetadata, interfaceName, overrides);
+        final MutableClassInfo classMetadata = hierarchy.get(classId);
+        final MethodTable methodTable = methodTables[classId];
+        if (methodTable.overridesVersion != overridesVersion) {
+            methodTable.overrides.clear();
+            methodTable.overridesVersion = overridesVersion;
+        }
+
+        Set<MutableMethodReferenceInfo> overrides = methodTable.overrides.get(key);
+        if (overrides != null) {
+            return overrides;
+        }
+
+        overrides = new LinkedHashSet<>();
+        for (MutableMethodInfo ownerMethodMetadata : classMetadata.getBouncersTargeting(key)) {
+            doFindOverrides(ownerMethodMetadata, classId, overrides);
+        }
+
+        MutableMethodInfo ownerMethodMetadata = classMetadata.getMethods().get(key);
+        if (ownerMethodMetadata != null && (
+                !ownerMethodMetadata.isFinal() && !ownerMethodMetadata.isPrivate()
+        )) {
+            if (ownerMethodMetadata.getOverrides().isEmpty()) {
+                overrides.add(
+                        ownerMethodMetadata.getMethod().withOwner(
+                                classMetadata.getName(),
+                                ownerMethodMetadata.getSignature()
+                        ));
+            } else {
+                overrides.addAll(ownerMethodMetadata.getOverrides());
             }
         }
 
+        addInheritedOverrides(key, classId, overrides);
+
+        overrides = Collections.unmodifiableSet(overrides);
+        methodTable.overrides.put(key, overrides);
         return overrides;
     }
 
     /**
      * Finds the first concrete implementation of the given method within the class hierarchy.
+     * The first override inherited from the super types is looked up in their method tables, see {@link #findInheritedFirstOverride(MethodKey, int)}.
      * 
      * @param mtd The method metadata.
-     * @param owner The name of the class that potentially overrides the method as its arguments
+     * @param ownerId The id of the class that potentially overrides the method as its arguments
      * @return Returns the first found method override reference.
      */
-    private MutableMethodReferenceInfo doFindFirstOverride(MutableMethodInfo mtd, String owner) {
-        if (mtd.isStatic() || mtd.isPrivate() || mtd.getMethod().getName().startsWith("<"))
+    private MutableMethodReferenceInfo doFindFirstOverride(MutableMethodInfo mtd, int ownerId) {
+        if (!isOverridable(mtd))
             return null;
 
-        MutableClassInfo ownerInfo = codeTree.getClassMetadataFor(owner);
+        MutableClassInfo ownerInfo = hierarchy.get(ownerId);
+
+        //The method itself is never its own override, so only the bouncers targeting it are followed in its own class.
+        for (MutableMethodInfo m : ownerInfo.getBouncersTargeting(mtd.getMethod().getKey())) {
+            MutableMethodReferenceInfo ret = doFindFirstOverride(m, ownerId);
+            if (ret != null)
+                return ret;
+        }
+
+        return findFirstOverrideInSuperTypes(mtd.getMethod().getKey(), ownerId);
+    }
 
-        if (ownerInfo == null)
+    /**
+     * Finds the first game class method with the given key that a subclass of the given class overrides, walking up from the given class.
+     * The result only depends on the class hierarchy, so it is kept in the method table of the class for good.
+     * 
+     * @param key The method key, made up of its name and descriptor.
+     * @param classId The id of the class that the walk starts at.
+     * @return Returns the first found method override reference.
+     */
+    private MutableMethodReferenceInfo findInheritedFirstOverride(MethodKey key, int classId) {
+        if (!hierarchy.mayKnow(classId, key))
             return null;
 
-        if (ownerInfo.getMethods() != null && !ownerInfo.getMethods().isEmpty()) {
-            MutableMethodInfo methodInOwner = ownerInfo.getMethods().get(mtd.getMethod().getName() + mtd.getMethod().getDesc());
-            if (codeTree.isGameClass(ownerInfo.getName()) && methodInOwner != null && methodInOwner != mtd && (methodInOwner.getAccess() & (Opcodes.ACC_FINAL | Opcodes.ACC_PRIVATE)) == 0)
-                return new MutableMethodReferenceInfo(
-                        ownerInfo.getName(),
-                        methodInOwner.getMethod().getName(),
-                        methodInOwner.getMethod().getDesc(),
-                        methodInOwner.getSignature()
-                );
+        MutableClassInfo ownerInfo = hierarchy.get(classId);
 
-            for (MutableMethodInfo m : ownerInfo.getMethods().values()) {
-                MutableMethodReferenceInfo target = m.getBouncer() == null ? null : m.getBouncer().getTarget();
-                if (target != null && mtd.getMethod().getName().equals(target.getName())
-                        && mtd.getMethod().getDesc().equals(target.getDesc())) {
-                    MutableMethodReferenceInfo ret = doFindFirstOverride(m, ownerInfo.getName());
-                    if (ret != null)
-                        return ret;
-                }
+        final MethodTable methodTable = methodTables[classId];
+        final Optional<MutableMethodReferenceInfo> knownFirstOverride = methodTable.firstOverrides.get(key);
+        if (knownFirstOverride != null)
+            return knownFirstOverride.orElse(null);
+
+        MutableMethodReferenceInfo firstOverride = null;
+        MutableMethodInfo methodInOwner = ownerInfo.getMethods().get(key);
+        if (!ownerInfo.isLibrary() && methodInOwner != null && (methodInOwner.getAccess() & (Opcodes.ACC_FINAL | Opcodes.ACC_PRIVATE)) == 0) {
+            firstOverride = methodInOwner.getMethod().withOwner(
+                    ownerInfo.getName(),
+                    methodInOwner.getSignature()
+            );
+        }
+
+        if (firstOverride == null) {
+            for (MutableMethodInfo m : ownerInfo.getBouncersTargeting(key)) {
+                firstOverride = doFindFirstOverride(m, classId);
+                if (firstOverride != null)
+                    break;
             }
         }
 
-        if (ownerInfo.getSuperName() != null) {
-            MutableMethodReferenceInfo ret = doFindFirstOverride(mtd, ownerInfo.getSuperName());
+        if (firstOverride == null) {
+            firstOverride = findFirstOverrideInSuperTypes(key, classId);
+        }
+
+        methodTable.firstOverrides.put(key, Optional.ofNullable(firstOverride));
+        return firstOverride;
+    }
+
+    /**
+     * Continues the search for the first override in the super types of the given class.
+     * 
+     * @param key The method key, made up of its name and descriptor.
+     * @param classId The id of the class whose super types are searched.
+     * @return Returns the first found method override reference.
+     */
+    private MutableMethodReferenceInfo findFirstOverrideInSuperTypes(MethodKey key, int classId) {
+        final int superId = hierarchy.superId(classId);
+        if (superId != ClassHierarchy.MISSING) {
+            MutableMethodReferenceInfo ret = findInheritedFirstOverride(key, superId);
             if (ret != null)
                 return ret;
         }
 
-        if (ownerInfo.getInterfaces() != null && !ownerInfo.getInterfaces().isEmpty()) {
-            for (String interfaceName : ownerInfo.getInterfaces()) {
-                MutableMethodReferenceInfo ret = doFindFirstOverride(mtd, interfaceName);
-                if (ret != null)
-                    return ret;
-            }
+        for (int index = hierarchy.interfacesStart(classId); index < hierarchy.interfacesEnd(classId); index++) {
+            MutableMethodReferenceInfo ret = findInheritedFirstOverride(key, hierarchy.interfaceId(index));
+            if (ret != null)
+                return ret;
         }
 
         return null;
     }
 
+    /**
+     * Checks if the given method can take part in overriding, which excludes static and private methods as well as constructors and static initializers.
+     * 
+     * @param method The method metadata.
+     * @return Returns true if the method can override or be overridden.
+     */
+    private static boolean isOverridable(MutableMethodInfo method) {
+        return !method.isStatic() && !method.isPrivate() && !method.getMethod().getName().startsWith("<");
+    }
+
     /**
      * Resolves abstract methods in the class hierarchy, it does this by identifying the abstract methods 
      * concrete implementations and creating appropriate method references.
+     * Override sets are shared, so an implementation gets a new override set instead of extending its current one.
+     * Both walk the ancestors of the class in the order of its cached closure, see {@link #getAncestors(int)}.
      * 
-     * @param cls The class metadata for trying to resolve the abstract root class.
+     * @param classId The id of the class for trying to resolve the abstract root class.
+     * @param changes The keys of the methods whose overrides changed, keyed by the id of their class, or null if they are not recorded.
      */
-    private void resolveAbstract(MutableClassInfo cls) {
-        Map<String, String> abs = new HashMap<>();
-        Set<String> known = new TreeSet<>();
-        Queue<String> que = new LinkedList<>();
-        Consumer<String> add = c -> {
-            if (!known.contains(c)) {
-                que.add(c);
-                known.add(c);
+    private void resolveAbstract(int classId, Map<Integer, Set<MethodKey>> changes) {
+        final int[] ancestors = getAncestors(classId);
+        Map<MethodKey, String> abs = new HashMap<>();
+
+        for (int id : ancestors) {
+            final MutableClassInfo info = hierarchy.get(id);
+            for (MutableMethodInfo mtd : methodTables[id].getAbstractMethods(info)) {
+                if (mtd.getOverrides() == null || mtd.getOverrides().isEmpty()) //We only want the roots
+                    abs.put(mtd.getMethod().getKey(), info.getName());
             }
-        };
-
-        add.accept(cls.getName());
-
-        while (!que.isEmpty()) {
-            MutableClassInfo info = codeTree.getClassMetadataFor(que.poll());
-            if (info == null)
-                continue;
-
-            if (info.getMethods() != null)
-                info.getMethods().values().stream()
-                        .filter(MutableMethodInfo::isAbstract)
-                        .filter(mtd -> mtd.getOverrides() == null || mtd.getOverrides().isEmpty()) //We only want the roots
-                        .forEach(mtd -> abs.put(mtd.getMethod().getName() + mtd.getMethod().getDesc(), info.getName()));
-
-            if (info.getSuperName() != null)
-                add.accept(info.getSuperName());
-
-            if (info.getInterfaces() != null)
-                info.getInterfaces().forEach(add);
         }
 
-        known.clear();
-        add.accept(cls.getName());
+        if (abs.isEmpty())
+            return;
 
-        while (!que.isEmpty()) {
-            MutableClassInfo info = codeTree.getClassMetadataFor(que.poll());
-            if (info == null)
-                continue;
+        for (int id : ancestors) {
+            for (MutableMethodInfo mtd : methodTables[id].getConcreteMethods(hierarchy.get(id))) {
+                String towner = abs.remove(mtd.getMethod().getKey());
+                if (towner == null)
+                    continue;
+                MutableMethodReferenceInfo target = mtd.getMethod().withOwner(
+                        towner,
+                        mtd.getSignature()
+                );
 
-            if (info.getMethods() != null && !info.getMethods().isEmpty()) {
-                for (MutableMethodInfo mtd : info.getMethods().values()) {
-                    if (mtd.isAbstract())
-                        continue;
-
-                    String towner = abs.remove(mtd.getMethod().getName() + mtd.getMethod().getDesc());
-                    if (towner == null)
-                        continue;
-                    MutableMethodReferenceInfo target = new MutableMethodReferenceInfo(
-                            towner,
-                            mtd.getMethod().getName(),
-                            mtd.getMethod().getDesc(),
-                            mtd.getSignature()
-                    );
-
-                    if (mtd.getOverrides() != null) {
-                        mtd.getOverrides().add(target);
-                    } else {
-                        mtd.setOverrides(new LinkedHashSet<>(Collections.singletonList(target)));
+                if (mtd.getOverrides() instanceof OverrideSet) {
+                    final OverrideSet overrides = overrideSets.with((OverrideSet) mtd.getOverrides(), target);
+                    if (overrides != mtd.getOverrides()) {
+                        mtd.setOverrides(overrides);
+                        //The inherited overrides in the method tables may include the replaced set.
+                        recordChange(id, mtd, changes);
                     }
+                } else {
+                    mtd.setOverrides(overrideSets.intern(Collections.singletonList(target)));
+                    recordChange(id, mtd, changes);
                 }
             }
 
-            if (info.getSuperName() != null)
-                add.accept(info.getSuperName());
+            if (abs.isEmpty())
+                return;
+        }
+    }
+
+    /**
+     * Returns the given class and all of its known ancestors in breadth first order, visiting the super class before the interfaces.
+     * The closure only depends on the class hierarchy, so it is computed once and kept in the method table of the class.
+     * 
+     * @param classId The id of the class.
+     * @return Returns the ids of the class and its ancestors.
+     */
+    private int[] getAncestors(int classId) {
+        final MethodTable methodTable = methodTables[classId];
+        if (methodTable.ancestors != null)
+            return methodTable.ancestors;
+
+        //Ancestors always have lower ids than their subclasses.
+        final boolean[] known = new boolean[classId + 1];
+        int[] ancestors = new int[8];
+        int size = 0;
+        known[classId] = true;
+        ancestors[size++] = classId;
+        for (int i = 0; i < size; i++) {
+            final int id = ancestors[i];
+            final int superId = hierarchy.superId(id);
+            if (superId != ClassHierarchy.MISSING && !known[superId]) {
+                known[superId] = true;
+                if (size == ancestors.length)
+                    ancestors = Arrays.copyOf(ancestors, size * 2);
+                ancestors[size++] = superId;
+            }
 
-            if (info.getInterfaces() != null && !info.getInterfaces().isEmpty())
-                info.getInterfaces().forEach(add);
+            for (int index = hierarchy.interfacesStart(id); index < hierarchy.interfacesEnd(id); index++) {
+                final int interfaceId = hierarchy.interfaceId(index);
+                if (!known[interfaceId]) {
+                    known[interfaceId] = true;
+                    if (size == ancestors.length)
+                        ancestors = Arrays.copyOf(ancestors, size * 2);
+                    ancestors[size++] = interfaceId;
+                }
+            }
         }
+
+        methodTable.ancestors = Arrays.copyOf(ancestors, size);
+        return methodTable.ancestors;
     }
 
     /**
@@ -376,11 +686,47 @@ public class CodeCleaner {
         for (MutableRecordInfo mutableRecordInfo : mutableClassInfo.getRecords().values()) {
             MutableFieldInfo mutableFieldInfo = mutableClassInfo.getFields().get(mutableRecordInfo.getName());
             if (mutableFieldInfo != null && !mutableFieldInfo.getGetters().isEmpty()) {
-                mutableRecordInfo.getGetters().addAll(
+                mutableRecordInfo.addGetters(
                         mutableFieldInfo.getGetters()
                 );
             }
         }
     }
 
+    /**
+     * The resolved methods a class passes on to its subclasses, keyed by method key and filled as they are requested.
+     * Classes of the same level may fill the table of a shared super type concurrently, which always yields the same entries.
+     */
+    private static final class MethodTable {
+        private final Map<MethodKey, Set<MutableMethodReferenceInfo>> overrides = new ConcurrentHashMap<>();
+        private final Map<MethodKey, Optional<MutableMethodReferenceInfo>> firstOverrides = new ConcurrentHashMap<>();
+        private int overridesVersion;
+        private int[] ancestors;
+        private MutableMethodInfo[] abstractMethods;
+        private MutableMethodInfo[] concreteMethods;
+
+        private MutableMethodInfo[] getAbstractMethods(MutableClassInfo classMetadata) {
+            if (abstractMethods == null)
+                splitMethods(classMetadata);
+            return abstractMethods;
+        }
+
+        private MutableMethodInfo[] getConcreteMethods(MutableClassInfo classMetadata) {
+            if (concreteMethods == null)
+                splitMethods(classMetadata);
+            return concreteMethods;
+        }
+
+        private void splitMethods(MutableClassInfo classMetadata) {
+            final List<MutableMethodInfo> abstractMethods = new ArrayList<>();
+            final List<MutableMethodInfo> concreteMethods = new ArrayList<>();
+            if (classMetadata.getMethods() != null) {
+                for (MutableMethodInfo method : classMetadata.getMethods().values()) {
+                    (method.isAbstract() ? abstractMethods : concreteMethods).add(method);
+                }
+            }
+            this.concreteMethods = concreteMethods.toArray(new MutableMethodInfo[0]);
+            this.abstractMethods = abstractMethods.toArray(new MutableMethodInfo[0]);
+        }
+    }
 }
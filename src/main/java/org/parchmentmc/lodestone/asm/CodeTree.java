@@ -1,103 +1,430 @@
 package org.parchmentmc.lodestone.asm;
 
 import org.objectweb.asm.ClassReader;
-import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.ClassVisitor;
 
-import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * The tree of all loaded classes, which parses the metadata of a class the first time it is requested.
+ * Class metadata can be requested from several threads at once, also while library files are still being loaded.
+ * Each class is parsed at most once. The game files must be loaded before their classes are requested.
+ */
+public class CodeTree implements Closeable {
 
-public class CodeTree {
-    
     private final Set<String> noneLibraryClasses = new LinkedHashSet<>();
-    private final Map<String, byte[]> sources = new HashMap<>();
+    private final ClassByteStore sources;
+
+    /**
+     * A map consisting of the class string identifier as the key and the library the class can be read from as the value.
+     */
+    private final Map<String, LibrarySource> librarySources = new ConcurrentHashMap<>();
+
+    /**
+     * The libraries and game jars that are kept open to read their classes on demand.
+     */
+    private final List<LibrarySource> openSources = new ArrayList<>();
 
     /**
      * A map consisting of the class string identifier as the key and the Mutable class metadata as the value.
      */
-    private final Map<String, MutableClassInfo> parsedClasses = new HashMap<>();
+    private final Map<String, MutableClassInfo> parsedClasses = new ConcurrentHashMap<>();
+
+    private final SymbolTable symbols = new SymbolTable();
+
+    /**
+     * The analysis passes that run over every parsed class, in registration order.
+     */
+    private final List<ClassAnalysisPass<?>> analysisPasses = new CopyOnWriteArrayList<>();
+    private final LibraryHierarchyCache libraryCache;
+
+    /**
+     * The dense ids of the requested classes, dropped whenever more classes are loaded, as they can fill in missing super types.
+     */
+    private ClassHierarchy hierarchy;
+
+    /**
+     * Creates a tree which keeps game classes on the heap and reads library classes straight from their jars.
+     */
+    public CodeTree() {
+        this(null);
+    }
+
+    /**
+     * Creates a tree which keeps game classes on the heap and reads library classes from the given hierarchy cache, filling it as needed.
+     * 
+     * @param libraryCache The cache library hierarchies are read from, or null to read library jars directly.
+     */
+    public CodeTree(final LibraryHierarchyCache libraryCache) {
+        this(libraryCache, new HeapClassByteStore());
+    }
+
+    /**
+     * Main Constructor
+     * 
+     * @param libraryCache The cache library hierarchies are read from, or null to read library jars directly.
+     * @param sources The store the class files of game classes are kept in until they are parsed.
+     */
+    public CodeTree(final LibraryHierarchyCache libraryCache, final ClassByteStore sources) {
+        this.libraryCache = libraryCache;
+        this.sources = sources;
+    }
+
+    /**
+     * Registers an analysis pass, which runs in the same scan over a class file as the parser for every class parsed from now on.
+     * 
+     * @param pass The analysis pass.
+     */
+    public void addAnalysisPass(final ClassAnalysisPass<?> pass) {
+        analysisPasses.add(pass);
+    }
 
     public Set<String> getNoneLibraryClasses() {
         return noneLibraryClasses;
     }
 
     /**
-     * Loads all class files for a given file path and stores them in the 'sources' map as byte arrays.
+     * Loads all class files for a given file path.
+     * Non library classes are handed to the 'sources' class byte store, which may read them right away or keep
+     * the jar entry to read them on demand. Library files are only indexed and their classes are read on demand,
+     * either from the jar or from the library hierarchy cache. Either way the file is kept open until the tree is closed.
      * 
      * @param path The file path to the file being loaded.
      * @param library If the loaded file is a library or not.
-     * @throws IOException Throws an IOException if it couldn't read the file using the ZipInputStream.
-     */
-    public final void load(final Path path, final boolean library) throws IOException {
-        try (ZipInputStream zipInputStream = new ZipInputStream(Files.newInputStream(path))) {
-            ZipEntry entry;
-            while ((entry = zipInputStream.getNextEntry()) != null) {
-                String name = entry.getName();
-                if (entry.isDirectory() || !name.endsWith(".class"))
-                    continue;
-
-                String cls = name.substring(0, name.length() - 6);
-                if (!sources.containsKey(cls)) {
-                    byte[] data = readStreamFully(zipInputStream);
-                    sources.put(cls, data);
-                    if (!library)
-                        noneLibraryClasses.add(cls);
+     * @throws IOException Throws an IOException if it couldn't read the file using the ZipFile.
+     */
+    public final synchronized void load(final Path path, final boolean library) throws IOException {
+        hierarchy = null;
+        if (library) {
+            registerLibrary(openLibrary(path));
+        } else {
+            registerGameJar(JarIndex.open(path));
+        }
+    }
+
+    /**
+     * Loads the classes of the JDK the build runs on as a library, with a lower priority than any library loaded before.
+     * The JDK classes are indexed once per JDK if the tree has a library hierarchy cache, and read from
+     * the module image on demand otherwise. Like any library class, a JDK class is only parsed once it is requested.
+     * 
+     * @throws IOException Throws an IOException if the JDK classes could not be indexed.
+     */
+    public final synchronized void loadJdk() throws IOException {
+        hierarchy = null;
+        registerLibrary(libraryCache != null ? libraryCache.openJdk() : JdkLibrary.open());
+    }
+
+    /**
+     * Loads all class files for the given file paths, reading the files in parallel on the given executor.
+     * The read classes are registered in the iteration order of the paths, so a class found in an earlier
+     * file shadows the same class in a later one, exactly as if {@link #load(Path, boolean)} was called for each path.
+     * 
+     * @param paths The file paths to the files being loaded.
+     * @param library If the loaded files are libraries or not.
+     * @param executor The executor the files are read on.
+     * @throws IOException Throws an IOException if any of the files couldn't be read.
+     */
+    public final synchronized void loadAll(final Collection<Path> paths, final boolean library, final ExecutorService executor) throws IOException {
+        hierarchy = null;
+        if (library) {
+            loadAll(paths, executor, this::openLibrary, this::registerLibrary, LibrarySource::close);
+        } else {
+            loadAll(paths, executor, JarIndex::open, this::registerGameJar, JarIndex::close);
+        }
+    }
+
+    private <T> void loadAll(final Collection<Path> paths, final ExecutorService executor, final JarReader<T> reader, final JarRegistrar<T> registrar, final JarCloser<T> closer) throws IOException {
+        final List<Future<T>> reads = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            reads.add(executor.submit(() -> reader.read(path)));
+        }
+
+        int registered = 0;
+        try {
+            for (Future<T> read : reads) {
+                registrar.register(await(read));
+                registered++;
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            // Registered reads are closed with the tree, all others are stopped or closed here, so no opened file is leaked.
+            for (int i = registered; i < reads.size(); i++) {
+                discard(reads.get(i), closer, e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Discards a read that is not going to be registered, closing its result once it completed successfully.
+     * Reads that did not start yet are cancelled, reads that are running are waited for, as they may open a file.
+     * 
+     * @param read The discarded read.
+     * @param closer Closes the result of the read.
+     * @param failure The failure the read is discarded for, which any failure to close the result is added to.
+     * @param <T> The type of the read result.
+     */
+    private static <T> void discard(final Future<T> read, final JarCloser<T> closer, final Throwable failure) {
+        if (read.cancel(false))
+            return;
+
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    closer.close(read.get());
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException | CancellationException e) {
+                    // The read failed itself, so there is nothing to close.
+                    return;
+                } catch (IOException e) {
+                    failure.addSuppressed(e);
+                    return;
                 }
             }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Hands the classes of the given game jar to the 'sources' class byte store, unless a class with the same name was already loaded.
+     * The jar is kept open, so the store only has to read the class files it keeps on the heap right away.
+     * 
+     * @param jar The indexed game jar.
+     * @throws IOException Throws an IOException if a class file the store reads right away could not be read.
+     */
+    private void registerGameJar(final JarIndex jar) throws IOException {
+        openSources.add(jar);
+        for (String cls : jar.getClasses()) {
+            if (!isLoaded(cls)) {
+                sources.put(cls, jar.size(cls), () -> jar.read(cls));
+                noneLibraryClasses.add(cls);
+            }
+        }
+    }
+
+    /**
+     * Stores the classes of the given library in the 'librarySources' map, unless a class with the same name was already loaded.
+     * 
+     * @param library The indexed library.
+     */
+    private void registerLibrary(final LibrarySource library) {
+        openSources.add(library);
+        for (String cls : library.getClasses()) {
+            if (!isLoaded(cls)) {
+                librarySources.put(cls, library);
+            }
+        }
+    }
+
+    /**
+     * Opens the given library jar, through the library hierarchy cache if the tree has one.
+     * 
+     * @param path The file path to the library jar.
+     * @return Returns the indexed library.
+     * @throws IOException Throws an IOException if the library could not be indexed.
+     */
+    private LibrarySource openLibrary(final Path path) throws IOException {
+        return libraryCache != null ? libraryCache.open(path) : JarIndex.open(path);
+    }
+
+    private boolean isLoaded(final String cls) {
+        return noneLibraryClasses.contains(cls) || librarySources.containsKey(cls) || parsedClasses.containsKey(cls);
+    }
+
+    /**
+     * Waits for the given read to complete, unwrapping any IOException it failed with.
+     * 
+     * @param read The pending read.
+     * @param <T> The type of the read result.
+     * @return Returns the result of the read.
+     * @throws IOException Throws an IOException if the read failed or the waiting thread was interrupted.
+     */
+    private static <T> T await(final Future<T> read) throws IOException {
+        try {
+            return read.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading class files");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IOException("Failed to load class files", e.getCause());
         }
     }
 
     /**
      * Retrieves the metadata for a given class name, creating it if necessary, and returns a MutableClassInfo object.
+     * Classes are parsed in a single pass without building a tree of the class, see {@link ClassShape}.
      * 
      * @param cls The class identifier name.
      * @return Returns the mutable metadata for the class.
+     * @throws UncheckedIOException Throws an UncheckedIOException if the class had to be read from a library and that failed.
      */
     public MutableClassInfo getClassMetadataFor(String cls) {
         MutableClassInfo classMetadata = parsedClasses.get(cls);
         if (classMetadata == null) {
-            byte[] data = sources.remove(cls);
-            if (data == null) {
-                return null;
+            classMetadata = parsedClasses.computeIfAbsent(cls, this::parseClass);
+            // The bytes are only dropped once the class is parsed, so it is never seen as missing while another thread parses it.
+            sources.remove(cls);
+            librarySources.remove(cls);
+        }
+        return classMetadata;
+    }
+
+    /**
+     * Parses the metadata of a class from its loaded class file.
+     * 
+     * @param cls The class identifier name.
+     * @return Returns the mutable metadata for the class, or null if the class is not loaded.
+     */
+    private MutableClassInfo parseClass(final String cls) {
+        final byte[] data = sources.get(cls);
+        final LibrarySource source = data == null ? librarySources.get(cls) : null;
+        if (data == null && source == null) {
+            return null;
+        }
+        final boolean library = !isGameClass(cls);
+        ClassShape classShape = new ClassShape(library);
+
+        // Every analysis pass chains its visitor in front of the parser, so the class file is only read once.
+        ClassVisitor visitor = classShape;
+        final ClassAnalysis<Set<String>> lambdas = LambdaPass.INSTANCE.begin(visitor, library);
+        if (lambdas != null) {
+            visitor = lambdas;
+        }
+        final List<ClassAnalysisPass<?>> passes = new ArrayList<>(analysisPasses.size());
+        final List<ClassAnalysis<?>> analyses = new ArrayList<>(analysisPasses.size());
+        for (ClassAnalysisPass<?> pass : analysisPasses) {
+            final ClassAnalysis<?> analysis = pass.begin(visitor, library);
+            if (analysis != null) {
+                passes.add(pass);
+                analyses.add(analysis);
+                visitor = analysis;
             }
-            ClassNode classNode = new ClassNode();
-            ClassReader classReader = new ClassReader(data);
-            classReader.accept(classNode, 0);
+        }
 
-            classMetadata = buildClass(classNode);
+        final int parsingOptions = library ? ClassReader.SKIP_FRAMES : 0;
+        if (data != null) {
+            new ClassReader(data).accept(visitor, parsingOptions);
+        } else if (!readLibraryClass(source, cls, visitor, parsingOptions)) {
+            return null;
+        }
 
-            parsedClasses.put(cls, classMetadata);
+        if (lambdas != null) {
+            classShape.setLambdas(lambdas.getResult());
         }
-        return classMetadata;
+        for (int i = 0; i < passes.size(); i++) {
+            classShape.addAnalysis(passes.get(i), analyses.get(i).getResult());
+        }
+        return buildClass(classShape);
+    }
+
+    /**
+     * Returns the class hierarchy of the loaded classes as dense integer ids, which are assigned as classes are requested from it.
+     * A new hierarchy is returned once more classes are loaded, so ids are only valid for the hierarchy they were taken from.
+     * 
+     * @return Returns the class hierarchy of the loaded classes.
+     */
+    synchronized ClassHierarchy getHierarchy() {
+        if (hierarchy == null) {
+            hierarchy = new ClassHierarchy(this);
+        }
+        return hierarchy;
     }
 
     public boolean isGameClass(final String cls) {
         return noneLibraryClasses.contains(cls);
     }
 
-    private MutableClassInfo buildClass(final ClassNode classNode) {
-        return new MutableClassInfo(classNode);
+    /**
+     * Closes all libraries and game jars that are kept open to read their classes on demand.
+     * 
+     * @throws IOException Throws an IOException if any of the files could not be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        IOException failure = null;
+        for (LibrarySource source : openSources) {
+            try {
+                source.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        openSources.clear();
+        librarySources.clear();
+        if (failure != null)
+            throw failure;
     }
 
     /**
-     * Reads an InputStream fully and returns the data as a byte array.
+     * Reads a not yet parsed library class from its library into the given visitor.
      * 
-     * @param is The input stream thats being read.
-     * @return Returns the read file in the form of a byte array of data.
-     * @throws IOException Throws an IOException if the data cannot be read.
+     * @param library The library the class is read from.
+     * @param cls The class identifier name.
+     * @param visitor The visitor the class is read into.
+     * @param parsingOptions The options the class file is read with.
+     * @return Returns false if the library does not contain the class.
      */
-    private static byte[] readStreamFully(InputStream is) throws IOException {
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(Math.max(8192, is.available()));
-        byte[] buffer = new byte[8192];
-        int read;
-        while ((read = is.read(buffer)) >= 0) {
-            byteArrayOutputStream.write(buffer, 0, read);
+    private static boolean readLibraryClass(final LibrarySource library, final String cls, final ClassVisitor visitor, final int parsingOptions) {
+        try {
+            return library.accept(cls, visitor, parsingOptions);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read class " + cls, e);
         }
-        return byteArrayOutputStream.toByteArray();
+    }
+
+    private MutableClassInfo buildClass(final ClassShape classShape) {
+        return new MutableClassInfo(classShape, symbols);
+    }
+
+    /**
+     * Reads a single jar of a set of loaded jars.
+     * 
+     * @param <T> The type of the read result.
+     */
+    @FunctionalInterface
+    private interface JarReader<T> {
+        T read(Path path) throws IOException;
+    }
+
+    /**
+     * Registers the result of a read.
+     * 
+     * @param <T> The type of the read result.
+     */
+    @FunctionalInterface
+    private interface JarRegistrar<T> {
+        void register(T read) throws IOException;
+    }
+
+    /**
+     * Closes the result of a read that is not registered.
+     * 
+     * @param <T> The type of the read result.
+     */
+    @FunctionalInterface
+    private interface JarCloser<T> {
+        void close(T read) throws IOException;
     }
 }
@@ -0,0 +1,27 @@
+package org.parchmentmc.lodestone.asm;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A class byte store which keeps every class file on the heap as is.
+ */
+public class HeapClassByteStore implements ClassByteStore {
+
+    private final Map<String, byte[]> classes = new ConcurrentHashMap<>();
+
+    @Override
+    public void put(final String cls, final byte[] data) {
+        classes.put(cls, data);
+    }
+
+    @Override
+    public byte[] get(final String cls) {
+        return classes.get(cls);
+    }
+
+    @Override
+    public void remove(final String cls) {
+        classes.remove(cls);
+    }
+}
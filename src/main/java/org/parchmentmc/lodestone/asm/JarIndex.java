@@ -0,0 +1,128 @@
+package org.parchmentmc.lodestone.asm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * An index of the class files contained in a jar, built from its central directory only.
+ * The jar is kept open, so the bytes of a class can be inflated on demand the first time it is requested.
+ */
+final class JarIndex implements LibrarySource {
+
+    private final ZipFile zipFile;
+    private final List<String> classes;
+
+    private JarIndex(final ZipFile zipFile, final List<String> classes) {
+        this.zipFile = zipFile;
+        this.classes = classes;
+    }
+
+    /**
+     * Opens the given jar and indexes the class files it contains.
+     * 
+     * @param path The file path to the jar being indexed.
+     * @return Returns the index of the jar, which must be closed once it is no longer used.
+     * @throws IOException Throws an IOException if the central directory of the jar could not be read.
+     */
+    static JarIndex open(final Path path) throws IOException {
+        final ZipFile zipFile = new ZipFile(path.toFile());
+        try {
+            final List<String> classes = new ArrayList<>();
+            final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (entry.isDirectory() || !name.endsWith(".class"))
+                    continue;
+
+                classes.add(name.substring(0, name.length() - 6));
+            }
+            return new JarIndex(zipFile, classes);
+        } catch (RuntimeException e) {
+            zipFile.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public List<String> getClasses() {
+        return classes;
+    }
+
+    @Override
+    public byte[] read(final String cls) throws IOException {
+        final ZipEntry entry = zipFile.getEntry(cls + ".class");
+        if (entry == null)
+            return null;
+
+        return readEntry(zipFile, entry);
+    }
+
+    /**
+     * Returns the size of the class file for the given class, as recorded in the central directory.
+     * 
+     * @param cls The class identifier name.
+     * @return Returns the size of the class file in bytes, or -1 if it is not recorded or the jar does not contain the class.
+     */
+    long size(final String cls) {
+        final ZipEntry entry = zipFile.getEntry(cls + ".class");
+        return entry != null ? entry.getSize() : -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        zipFile.close();
+    }
+
+    /**
+     * Reads a single zip entry into a byte array sized from the entry's uncompressed size.
+     * Falls back to buffered reading if the size is not recorded in the central directory.
+     * 
+     * @param zipFile The zip file that contains the entry.
+     * @param entry The entry being read.
+     * @return Returns the uncompressed data of the entry.
+     * @throws IOException Throws an IOException if the entry cannot be read or is shorter than its recorded size.
+     */
+    static byte[] readEntry(final ZipFile zipFile, final ZipEntry entry) throws IOException {
+        try (InputStream is = zipFile.getInputStream(entry)) {
+            final long size = entry.getSize();
+            if (size < 0 || size > Integer.MAX_VALUE)
+                return readStreamFully(is);
+
+            final byte[] data = new byte[(int) size];
+            int offset = 0;
+            while (offset < data.length) {
+                int read = is.read(data, offset, data.length - offset);
+                if (read < 0)
+                    throw new EOFException("Unexpected end of entry " + entry.getName() + " in " + zipFile.getName());
+                offset += read;
+            }
+            return data;
+        }
+    }
+
+    /**
+     * Reads an InputStream fully and returns the data as a byte array.
+     * 
+     * @param is The input stream thats being read.
+     * @return Returns the read file in the form of a byte array of data.
+     * @throws IOException Throws an IOException if the data cannot be read.
+     */
+    private static byte[] readStreamFully(InputStream is) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(Math.max(8192, is.available()));
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = is.read(buffer)) >= 0) {
+            byteArrayOutputStream.write(buffer, 0, read);
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+}
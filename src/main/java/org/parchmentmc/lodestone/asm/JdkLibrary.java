@@ -0,0 +1,98 @@
+package org.parchmentmc.lodestone.asm;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.ProviderNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * The classes of the JDK the build runs on, read from the module image through the 'jrt:/' file system.
+ * On JDKs without a module image the classes are read from the 'rt.jar' of the runtime instead.
+ */
+final class JdkLibrary implements LibrarySource {
+
+    private final List<String> classes;
+    private final Map<String, Path> paths;
+
+    private JdkLibrary(final List<String> classes, final Map<String, Path> paths) {
+        this.classes = Collections.unmodifiableList(classes);
+        this.paths = paths;
+    }
+
+    /**
+     * Opens the classes of the running JDK.
+     * 
+     * @return Returns the classes of the running JDK, which must be closed once they are no longer used.
+     * @throws IOException Throws an IOException if the module image or the runtime jar could not be read.
+     */
+    static LibrarySource open() throws IOException {
+        final FileSystem jrt;
+        try {
+            jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+        } catch (FileSystemNotFoundException | ProviderNotFoundException e) {
+            final Path runtimeJar = Paths.get(System.getProperty("java.home"), "lib", "rt.jar");
+            if (!Files.isRegularFile(runtimeJar))
+                throw new NoSuchFileException(runtimeJar.toString(), null, "The running JDK has neither a module image nor a runtime jar");
+            return JarIndex.open(runtimeJar);
+        }
+
+        final List<String> classes = new ArrayList<>();
+        final Map<String, Path> paths = new HashMap<>();
+        try (DirectoryStream<Path> modules = Files.newDirectoryStream(jrt.getPath("/modules"))) {
+            for (Path module : modules) {
+                try (Stream<Path> files = Files.walk(module)) {
+                    files.forEach(file -> {
+                        final String name = module.relativize(file).toString();
+                        if (!name.endsWith(".class") || name.equals("module-info.class"))
+                            return;
+
+                        final String cls = name.substring(0, name.length() - 6);
+                        if (!paths.containsKey(cls)) {
+                            classes.add(cls);
+                            paths.put(cls, file);
+                        }
+                    });
+                }
+            }
+        }
+        return new JdkLibrary(classes, paths);
+    }
+
+    /**
+     * Returns a key which identifies the running JDK, so data derived from its classes can be reused until it changes.
+     * 
+     * @return Returns the identifying key of the running JDK.
+     */
+    static String key() {
+        return System.getProperty("java.vendor") + '|' + System.getProperty("java.runtime.version") + '|' + System.getProperty("java.home");
+    }
+
+    @Override
+    public List<String> getClasses() {
+        return classes;
+    }
+
+    @Override
+    public byte[] read(final String cls) throws IOException {
+        final Path path = paths.get(cls);
+        return path != null ? Files.readAllBytes(path) : null;
+    }
+
+    @Override
+    public void close() {
+        // The 'jrt:/' file system is shared and can not be closed.
+    }
+}
@@ -0,0 +1,87 @@
+package org.parchmentmc.lodestone.asm;
+
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Finds the methods of a game class that implement a lambda expression of the class itself.
+ * Library classes are not analysed: library lambdas are private, and private bouncers never contribute to a resolved hierarchy.
+ */
+final class LambdaPass implements ClassAnalysisPass<Set<String>> {
+    static final LambdaPass INSTANCE = new LambdaPass();
+
+    private static final Handle LAMBDA_METAFACTORY = new Handle(Opcodes.H_INVOKESTATIC,
+            "java/lang/invoke/LambdaMetafactory",
+            "metafactory",
+            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodHandle;Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/CallSite;",
+            false);
+    private static final Handle LAMBDA_ALTMETAFACTORY = new Handle(Opcodes.H_INVOKESTATIC,
+            "java/lang/invoke/LambdaMetafactory",
+            "altMetafactory",
+            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;[Ljava/lang/Object;)Ljava/lang/invoke/CallSite;",
+            false);
+
+    private LambdaPass() {
+    }
+
+    @Override
+    public ClassAnalysis<Set<String>> begin(final ClassVisitor next, final boolean library) {
+        return library ? null : new LambdaAnalysis(next);
+    }
+
+    /**
+     * Returns the target method handle of the lambda expression created by an invokedynamic instruction.
+     *
+     * @param bsm the bootstrap method handle of the instruction
+     * @param bsmArgs the bootstrap method arguments of the instruction
+     * @return the target method handle of the lambda expression, or null if the instruction does not create a lambda expression
+     */
+    private static Handle getLambdaTarget(final Handle bsm, final Object[] bsmArgs) {
+        if (LAMBDA_METAFACTORY.equals(bsm) && bsmArgs != null && bsmArgs.length == 3 && bsmArgs[1] instanceof Handle) {
+            return ((Handle) bsmArgs[1]);
+        }
+        if (LAMBDA_ALTMETAFACTORY.equals(bsm) && bsmArgs != null && bsmArgs.length == 5 && bsmArgs[1] instanceof Handle) {
+            return ((Handle) bsmArgs[1]);
+        }
+        return null;
+    }
+
+    private static final class LambdaAnalysis extends ClassAnalysis<Set<String>> {
+        private final Set<String> lambdas = new HashSet<>();
+        private String className;
+
+        private LambdaAnalysis(final ClassVisitor next) {
+            super(next);
+        }
+
+        @Override
+        public void visit(final int version, final int access, final String name, final String signature, final String superName, final String[] interfaces) {
+            this.className = name;
+            super.visit(version, access, name, signature, superName, interfaces);
+        }
+
+        @Override
+        public MethodVisitor visitMethod(final int access, final String name, final String descriptor, final String signature, final String[] exceptions) {
+            return new MethodAnalysis(super.visitMethod(access, name, descriptor, signature, exceptions)) {
+                @Override
+                public void visitInvokeDynamicInsn(final String name, final String descriptor, final Handle bootstrapMethodHandle, final Object... bootstrapMethodArguments) {
+                    Handle target = getLambdaTarget(bootstrapMethodHandle, bootstrapMethodArguments);
+                    if (target != null && target.getOwner().equals(className)) {
+                        lambdas.add(target.getName() + target.getDesc());
+                    }
+                    super.visitInvokeDynamicInsn(name, descriptor, bootstrapMethodHandle, bootstrapMethodArguments);
+                }
+            };
+        }
+
+        @Override
+        public Set<String> getResult() {
+            return lambdas;
+        }
+    }
+}
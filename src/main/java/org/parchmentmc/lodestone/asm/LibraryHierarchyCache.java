@@ -0,0 +1,155 @@
+package org.parchmentmc.lodestone.asm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A persistent cache of the class hierarchy of library jars, keyed by the SHA-256 hash of the contents of each jar.
+ * For every library class the cache holds a summary with only what the {@link CodeTree} needs to resolve the hierarchy:
+ * the class header and the method declarations, plus the targets of bouncers, see {@link CachedLibrary}.
+ * Libraries rarely change between Minecraft versions, so most runs only hash a library jar, without opening or inflating it.
+ * As the key does not depend on where a jar is stored, a jar that is downloaded again or to another directory still finds its cache file.
+ * <p>
+ * Creating a cache file parses every class of its library, so the first run with an empty cache is slower than reading the jars directly.
+ */
+public class LibraryHierarchyCache {
+
+    private final Path directory;
+
+    /**
+     * Main Constructor
+     * 
+     * @param directory The directory the cache files are stored in, created on demand.
+     */
+    public LibraryHierarchyCache(final Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens the cached hierarchy of the given library jar, creating the cache file first if it does not exist yet.
+     * 
+     * @param jar The file path to the library jar.
+     * @return Returns the library backed by its cache file.
+     * @throws IOException Throws an IOException if the jar could not be read or the cache file could not be written.
+     */
+    LibrarySource open(final Path jar) throws IOException {
+        return open(hash(jar), () -> JarIndex.open(jar));
+    }
+
+    /**
+     * Opens the cached hierarchy of the JDK the build runs on, creating the cache file first if it does not exist yet.
+     * The cache file is keyed by the vendor, version and location of the JDK, so it is only created once per JDK.
+     * 
+     * @return Returns the JDK classes backed by their cache file.
+     * @throws IOException Throws an IOException if the JDK classes could not be read or the cache file could not be written.
+     */
+    LibrarySource openJdk() throws IOException {
+        return open("jdk-" + key(JdkLibrary.key()), JdkLibrary::open);
+    }
+
+    /**
+     * Opens the cache file with the given name, creating it from the given library if it does not exist yet.
+     * 
+     * @param name The name of the cache file, without version and extension.
+     * @param opener Opens the library the cache file is created from.
+     * @return Returns the library backed by its cache file.
+     * @throws IOException Throws an IOException if the library could not be read or the cache file could not be written.
+     */
+    private LibrarySource open(final String name, final LibraryOpener opener) throws IOException {
+        final Path file = directory.resolve(name + ".v" + CachedLibrary.VERSION + ".lhc");
+        if (Files.isRegularFile(file)) {
+            try {
+                return CachedLibrary.open(file);
+            } catch (IOException e) {
+                // The cache file is damaged, so it is rebuilt from the jar below.
+            }
+        }
+
+        final CachedLibrary.Writer writer = new CachedLibrary.Writer();
+        try (LibrarySource library = opener.open()) {
+            for (String cls : library.getClasses()) {
+                writer.add(cls, library.read(cls));
+            }
+        }
+
+        Files.createDirectories(directory);
+        final Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                writer.write(out);
+            }
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        return CachedLibrary.open(file);
+    }
+
+    /**
+     * Turns the description of a library into the name of its cache file.
+     * 
+     * @param description The description of the library, which changes whenever the library may have changed.
+     * @return Returns the SHA-256 hash of the description as a lower case hex string.
+     */
+    private static String key(final String description) {
+        final MessageDigest digest = sha256();
+        digest.update(description.getBytes(StandardCharsets.UTF_8));
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Turns the contents of a library jar into the name of its cache file.
+     * 
+     * @param jar The file path to the library jar.
+     * @return Returns the SHA-256 hash of the jar as a lower case hex string.
+     * @throws IOException Throws an IOException if the jar could not be read.
+     */
+    private static String hash(final Path jar) throws IOException {
+        final MessageDigest digest = sha256();
+        final byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(jar)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Opens the library a cache file is created from.
+     */
+    @FunctionalInterface
+    private interface LibraryOpener {
+        LibrarySource open() throws IOException;
+    }
+}
@@ -0,0 +1,48 @@
+package org.parchmentmc.lodestone.asm;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A library file whose classes are indexed when it is loaded and read on demand.
+ */
+interface LibrarySource extends Closeable {
+
+    /**
+     * Returns the identifier names of all classes in the library, in the order they are stored in.
+     * 
+     * @return Returns the identifier names of all indexed classes.
+     */
+    List<String> getClasses();
+
+    /**
+     * Reads the class file for the given class.
+     * 
+     * @param cls The class identifier name.
+     * @return Returns the bytes of the class file, or null if the library does not contain the class.
+     * @throws IOException Throws an IOException if the class file could not be read.
+     */
+    byte[] read(String cls) throws IOException;
+
+    /**
+     * Reads the class file for the given class, handing it to the given visitor.
+     * 
+     * @param cls The class identifier name.
+     * @param visitor The visitor the class is read into.
+     * @param parsingOptions The options of the {@link ClassReader} the class file is read with.
+     * @return Returns false if the library does not contain the class.
+     * @throws IOException Throws an IOException if the class file could not be read.
+     */
+    default boolean accept(final String cls, final ClassVisitor visitor, final int parsingOptions) throws IOException {
+        final byte[] data = read(cls);
+        if (data == null)
+            return false;
+
+        new ClassReader(data).accept(visitor, parsingOptions);
+        return true;
+    }
+}
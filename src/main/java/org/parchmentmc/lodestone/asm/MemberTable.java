@@ -0,0 +1,171 @@
+package org.parchmentmc.lodestone.asm;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An insertion ordered map of the members of a class, backed by two plain arrays.
+ * Most classes only have a handful of members, which are found by a linear scan. Only tables with more members
+ * than {@link #SCAN_LIMIT} get a hash index, which is built as the members are added.
+ * Members can be added and replaced, but not removed. A table is filled by one thread, and only read once it is shared.
+ *
+ * @param <K> The type of the member keys.
+ * @param <V> The type of the members.
+ */
+final class MemberTable<K, V> extends AbstractMap<K, V> {
+    private static final int SCAN_LIMIT = 8;
+
+    private Object[] keys;
+    private Object[] values;
+    private int size;
+    private Map<K, Integer> index;
+
+    /**
+     * Main Constructor
+     *
+     * @param capacity The expected number of members.
+     */
+    MemberTable(final int capacity) {
+        this.keys = new Object[Math.max(1, capacity)];
+        this.values = new Object[keys.length];
+    }
+
+    @Override
+    public V put(final K key, final V value) {
+        final int existing = indexOf(key);
+        if (existing >= 0) {
+            final V previous = valueAt(existing);
+            values[existing] = value;
+            return previous;
+        }
+
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        keys[size] = key;
+        values[size] = value;
+        size++;
+
+        if (index != null) {
+            index.put(key, size - 1);
+        } else if (size > SCAN_LIMIT) {
+            index = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                index.put(keyAt(i), i);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public V get(final Object key) {
+        final int found = indexOf(key);
+        return found >= 0 ? valueAt(found) : null;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private int indexOf(final Object key) {
+        if (index != null) {
+            final Integer found = index.get(key);
+            return found != null ? found : -1;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (Objects.equals(keys[i], key))
+                return i;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private K keyAt(final int i) {
+        return (K) keys[i];
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(final int i) {
+        return (V) values[i];
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new TableIterator<V>() {
+                    @Override
+                    V at(final int i) {
+                        return valueAt(i);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new TableIterator<Entry<K, V>>() {
+                    @Override
+                    Entry<K, V> at(final int i) {
+                        return new SimpleImmutableEntry<>(keyAt(i), valueAt(i));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Iterates the members in insertion order.
+     *
+     * @param <T> The type of the iterated elements.
+     */
+    private abstract class TableIterator<T> implements Iterator<T> {
+        private int next;
+
+        abstract T at(int i);
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public T next() {
+            if (next >= size)
+                throw new NoSuchElementException();
+            return at(next++);
+        }
+    }
+}
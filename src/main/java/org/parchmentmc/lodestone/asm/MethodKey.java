@@ -0,0 +1,53 @@
+package org.parchmentmc.lodestone.asm;
+
+/**
+ * Identifies a method within its class by its name and descriptor.
+ * The hash is computed once, and keys taken from the same {@link SymbolTable} are shared,
+ * so looking up a method by its key neither allocates nor compares any strings.
+ */
+public final class MethodKey {
+    private final String name;
+    private final String desc;
+    private final int hash;
+
+    /**
+     * Main Constructor
+     * 
+     * @param name The method name.
+     * @param desc The method descriptor.
+     */
+    MethodKey(final String name, final String desc) {
+        this.name = name;
+        this.desc = desc;
+        this.hash = 31 * name.hashCode() + desc.hashCode();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDesc() {
+        return desc;
+    }
+
+    @Override
+    public String toString() {
+        return name + desc;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof MethodKey))
+            return false;
+
+        final MethodKey other = (MethodKey) o;
+        return hash == other.hash && name.equals(other.name) && desc.equals(other.desc);
+    }
+}
@@ -0,0 +1,292 @@
+package org.parchmentmc.lodestone.asm;
+
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+
+import java.util.Arrays;
+
+/**
+ * Collects what a {@link MutableMethodInfo} is built from while a method is visited, without materialising its instructions.
+ * If requested, the shape of the instructions is recorded as a flat list of node types, opcodes and operands,
+ * which is enough to recognise bouncers and record getters.
+ */
+final class MethodShape extends MethodVisitor {
+    private final String className;
+    private final int access;
+    private final String name;
+    private final String desc;
+    private final String signature;
+    private final boolean recording;
+
+    /**
+     * The recorded instructions, using the node types of {@link AbstractInsnNode} and -1 as the opcode of pseudo instructions.
+     */
+    private int size;
+    private int[] types;
+    private int[] opcodes;
+    private int[] vars;
+    private String[] owners;
+    private String[] names;
+    private String[] descs;
+
+    /**
+     * Main Constructor
+     *
+     * @param className The name of the class that owns the method.
+     * @param access The access flags of the method.
+     * @param name The method name.
+     * @param desc The method descriptor.
+     * @param signature The generic signature of the method, may be null.
+     * @param recording If the shape of the instructions should be recorded.
+     */
+    MethodShape(final String className, final int access, final String name, final String desc, final String signature, final boolean recording) {
+        super(Opcodes.ASM9);
+        this.className = className;
+        this.access = access;
+        this.name = name;
+        this.desc = desc;
+        this.signature = signature;
+        this.recording = recording;
+    }
+
+    int getAccess() {
+        return access;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getDesc() {
+        return desc;
+    }
+
+    String getSignature() {
+        return signature;
+    }
+
+    /**
+     * Finds the method a bouncer delegates to: the instructions must load 'this' and the arguments in order,
+     * only casting or checking their types, and invoke a method of the same class with the same argument and return sizes.
+     *
+     * @param symbols The symbol table of the code tree.
+     * @return Returns a reference to the target of the bouncer, or null if the recorded instructions are not a bouncer.
+     */
+    MutableMethodReferenceInfo findBouncerTarget(final SymbolTable symbols) {
+        int start = skipLineNumber();
+        if (!isLoadThis(start))
+            return null;
+
+        int end = size - 1;
+        if (types[end] == AbstractInsnNode.LABEL) {
+            end--;
+        }
+
+        if (isReturn(end)) {
+            end--;
+        }
+
+        if (types[end] != AbstractInsnNode.METHOD_INSN)
+            return null;
+
+        Type[] args = Type.getArgumentTypes(desc);
+        int var = 1;
+        int index = 0;
+        for (int i = start + 1; i != end; i++) {
+            if (types[i] == AbstractInsnNode.VAR_INSN) {
+                if (vars[i] != var || index + 1 > args.length) {
+                    //Arguments are switched around, so seems like lambda!
+                    return null;
+                }
+                var += args[index++].getSize();
+            } else if (opcodes[i] != Opcodes.INSTANCEOF && opcodes[i] != Opcodes.CHECKCAST) {
+                // Anything else is invalid in a bouncer {As far as I know}, so we're most likely a lambda
+                return null;
+            }
+        }
+
+        if (owners[end].equals(className) && Type.getArgumentsAndReturnSizes(desc) == Type.getArgumentsAndReturnSizes(descs[end]))
+            return new MutableMethodReferenceInfo(symbols, owners[end], names[end], descs[end], null);
+
+        return null;
+    }
+
+    /**
+     * Finds the field a getter returns: the instructions must load 'this', read a field of the same class and return or jump.
+     *
+     * @return Returns the name of the returned field, or null if the recorded instructions are not a getter.
+     */
+    String findGetterField() {
+        int start = skipLineNumber();
+        if (!isLoadThis(start) || start + 1 >= size || types[start + 1] != AbstractInsnNode.FIELD_INSN)
+            return null;
+
+        int field = start + 1;
+        if (!owners[field].equals(className) || field + 1 >= size)
+            return null;
+
+        int ret = field + 1;
+        if (types[ret] == AbstractInsnNode.JUMP_INSN || isReturn(ret))
+            return names[field];
+
+        return null;
+    }
+
+    private int skipLineNumber() {
+        if (size > 1 && types[0] == AbstractInsnNode.LABEL && types[1] == AbstractInsnNode.LINE)
+            return 2;
+        return 0;
+    }
+
+    private boolean isLoadThis(final int index) {
+        return index < size && types[index] == AbstractInsnNode.VAR_INSN && vars[index] == 0 && opcodes[index] == Opcodes.ALOAD;
+    }
+
+    private boolean isReturn(final int index) {
+        return opcodes[index] >= Opcodes.IRETURN && opcodes[index] <= Opcodes.RETURN;
+    }
+
+    private int record(final int type, final int opcode) {
+        if (types == null) {
+            types = new int[16];
+            opcodes = new int[16];
+            vars = new int[16];
+            owners = new String[16];
+            names = new String[16];
+            descs = new String[16];
+        } else if (size == types.length) {
+            final int length = size * 2;
+            types = Arrays.copyOf(types, length);
+            opcodes = Arrays.copyOf(opcodes, length);
+            vars = Arrays.copyOf(vars, length);
+            owners = Arrays.copyOf(owners, length);
+            names = Arrays.copyOf(names, length);
+            descs = Arrays.copyOf(descs, length);
+        }
+        types[size] = type;
+        opcodes[size] = opcode;
+        return size++;
+    }
+
+    private void recordMember(final int type, final int opcode, final String owner, final String name, final String descriptor) {
+        if (recording) {
+            final int index = record(type, opcode);
+            owners[index] = owner;
+            names[index] = name;
+            descs[index] = descriptor;
+        }
+    }
+
+    @Override
+    public void visitFrame(final int type, final int numLocal, final Object[] local, final int numStack, final Object[] stack) {
+        if (recording) {
+            record(AbstractInsnNode.FRAME, -1);
+        }
+    }
+
+    @Override
+    public void visitInsn(final int opcode) {
+        if (recording) {
+            record(AbstractInsnNode.INSN, opcode);
+        }
+    }
+
+    @Override
+    public void visitIntInsn(final int opcode, final int operand) {
+        if (recording) {
+            record(AbstractInsnNode.INT_INSN, opcode);
+        }
+    }
+
+    @Override
+    public void visitVarInsn(final int opcode, final int var) {
+        if (recording) {
+            final int index = record(AbstractInsnNode.VAR_INSN, opcode);
+            vars[index] = var;
+        }
+    }
+
+    @Override
+    public void visitTypeInsn(final int opcode, final String type) {
+        if (recording) {
+            record(AbstractInsnNode.TYPE_INSN, opcode);
+        }
+    }
+
+    @Override
+    public void visitFieldInsn(final int opcode, final String owner, final String name, final String descriptor) {
+        recordMember(AbstractInsnNode.FIELD_INSN, opcode, owner, name, descriptor);
+    }
+
+    @Override
+    public void visitMethodInsn(final int opcode, final String owner, final String name, final String descriptor, final boolean isInterface) {
+        recordMember(AbstractInsnNode.METHOD_INSN, opcode, owner, name, descriptor);
+    }
+
+    @Override
+    public void visitInvokeDynamicInsn(final String name, final String descriptor, final Handle bootstrapMethodHandle, final Object... bootstrapMethodArguments) {
+        if (recording) {
+            record(AbstractInsnNode.INVOKE_DYNAMIC_INSN, Opcodes.INVOKEDYNAMIC);
+        }
+    }
+
+    @Override
+    public void visitJumpInsn(final int opcode, final Label label) {
+        if (recording) {
+            record(AbstractInsnNode.JUMP_INSN, opcode);
+        }
+    }
+
+    @Override
+    public void visitLabel(final Label label) {
+        if (recording) {
+            record(AbstractInsnNode.LABEL, -1);
+        }
+    }
+
+    @Override
+    public void visitLdcInsn(final Object value) {
+        if (recording) {
+            record(AbstractInsnNode.LDC_INSN, Opcodes.LDC);
+        }
+    }
+
+    @Override
+    public void visitIincInsn(final int var, final int increment) {
+        if (recording) {
+            record(AbstractInsnNode.IINC_INSN, Opcodes.IINC);
+        }
+    }
+
+    @Override
+    public void visitTableSwitchInsn(final int min, final int max, final Label dflt, final Label... labels) {
+        if (recording) {
+            record(AbstractInsnNode.TABLESWITCH_INSN, Opcodes.TABLESWITCH);
+        }
+    }
+
+    @Override
+    public void visitLookupSwitchInsn(final Label dflt, final int[] keys, final Label[] labels) {
+        if (recording) {
+            record(AbstractInsnNode.LOOKUPSWITCH_INSN, Opcodes.LOOKUPSWITCH);
+        }
+    }
+
+    @Override
+    public void visitMultiANewArrayInsn(final String descriptor, final int numDimensions) {
+        if (recording) {
+            record(AbstractInsnNode.MULTIANEWARRAY_INSN, Opcodes.MULTIANEWARRAY);
+        }
+    }
+
+    @Override
+    public void visitLineNumber(final int line, final Label start) {
+        if (recording) {
+            record(AbstractInsnNode.LINE, -1);
+        }
+    }
+}
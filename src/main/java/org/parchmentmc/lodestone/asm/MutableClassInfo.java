@@ -1,99 +1,77 @@
 package org.parchmentmc.lodestone.asm;
 
-import org.objectweb.asm.Handle;
-import org.objectweb.asm.Opcodes;
-import org.objectweb.asm.tree.AbstractInsnNode;
-import org.objectweb.asm.tree.ClassNode;
-import org.objectweb.asm.tree.InvokeDynamicInsnNode;
-import org.objectweb.asm.tree.MethodNode;
-
 import java.util.*;
 
 public class MutableClassInfo implements MutableSecuredObjectInfo {
-    private static final Handle LAMBDA_METAFACTORY = new Handle(Opcodes.H_INVOKESTATIC,
-            "java/lang/invoke/LambdaMetafactory",
-            "metafactory",
-            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodHandle;Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/CallSite;",
-            false);
-    private static final Handle LAMBDA_ALTMETAFACTORY = new Handle(Opcodes.H_INVOKESTATIC,
-            "java/lang/invoke/LambdaMetafactory",
-            "altMetafactory",
-            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;[Ljava/lang/Object;)Ljava/lang/invoke/CallSite;",
-            false);
-
     private final String name;
     private final String superName;
     private final List<String> interfaces;
-    private final Integer access;
+    private final int access;
     private final String signature;
     private final Map<String, MutableFieldInfo> fields;
-    private final Map<String, MutableMethodInfo> methods;
-    private final Map<String, MutableRecordInfo> records;
+    private final Map<MethodKey, MutableMethodInfo> methods;
+    private final Map<MethodKey, List<MutableMethodInfo>> bouncersByTarget;
+    private Map<String, MutableRecordInfo> records;
+    private final Map<ClassAnalysisPass<?>, Object> analyses;
     private final boolean isRecord;
+    private final boolean library;
     private boolean resolved = false;
 
     /**
      * Main Constructor
      * 
-     * @param node The class node being parsed into metadata.
+     * @param shape The collected shape of the class being turned into metadata.
+     * @param symbols The symbol table of the code tree, which the names and descriptors of the class are shared through.
      */
-    MutableClassInfo(ClassNode node) {
-        this.name = node.name;
-        this.superName = "java/lang/Object".equals(node.superName) ? null : node.superName;
-        this.isRecord = "java/lang/Record".equals(node.superName);
-        this.interfaces = node.interfaces != null && !node.interfaces.isEmpty() ? new ArrayList<>(node.interfaces) : null;
-        this.access = node.access == 0 ? null : node.access;
-        this.signature = node.signature;
-
-        this.records = new LinkedHashMap<>();
-        if (node.fields == null || node.fields.isEmpty()) {
+    MutableClassInfo(ClassShape shape, SymbolTable symbols) {
+        this.name = symbols.intern(shape.getName());
+        this.library = shape.isLibrary();
+        this.superName = "java/lang/Object".equals(shape.getSuperName()) ? null : symbols.intern(shape.getSuperName());
+        this.isRecord = "java/lang/Record".equals(shape.getSuperName());
+        if (shape.getInterfaces() != null && shape.getInterfaces().length != 0) {
+            this.interfaces = new ArrayList<>(shape.getInterfaces().length);
+            for (String itf : shape.getInterfaces()) {
+                this.interfaces.add(symbols.intern(itf));
+            }
+        } else {
+            this.interfaces = null;
+        }
+        this.access = shape.getAccess();
+        this.signature = shape.getSignature();
+        this.analyses = shape.getAnalyses();
+
+        if (shape.getFields().isEmpty()) {
             this.fields = null;
         } else {
-            this.fields = new LinkedHashMap<>();
-            node.fields.forEach(fld -> this.fields.put(fld.name, new MutableFieldInfo(this, fld)));
+            this.fields = new MemberTable<>(shape.getFields().size());
+            shape.getFields().forEach(fld -> this.fields.put(fld.name, new MutableFieldInfo(this, fld, symbols)));
         }
 
-        if (node.methods == null || node.methods.isEmpty()) {
+        if (shape.getMethods().isEmpty()) {
             this.methods = null;
+            this.bouncersByTarget = null;
         } else {
-            //Gather Lambda methods so we can skip them in bouncers?
-            Set<String> lambdas = new HashSet<>();
-            for (MethodNode mtd : node.methods) {
-                for (AbstractInsnNode asn : (Iterable<AbstractInsnNode>) () -> mtd.instructions.iterator()) {
-                    if (asn instanceof InvokeDynamicInsnNode) {
-                        Handle target = getLambdaTarget((InvokeDynamicInsnNode) asn);
-                        if (target != null) {
-                            lambdas.add(target.getOwner() + '/' + target.getName() + target.getDesc());
-                        }
-                    }
-                }
+            //Lambda methods are skipped in bouncers, library lambdas are not gathered at all, see {@link LambdaPass}.
+            Set<String> lambdas = shape.getLambdas();
+            this.methods = new MemberTable<>(shape.getMethods().size());
+            for (MethodShape mtd : shape.getMethods()) {
+                MutableMethodInfo method = new MutableMethodInfo(this, mtd, !lambdas.isEmpty() && lambdas.contains(mtd.getName() + mtd.getDesc()), symbols);
+                this.methods.put(method.getMethod().getKey(), method);
             }
 
-            this.methods = new LinkedHashMap<>();
-            for (MethodNode mtd : node.methods) {
-                String key = mtd.name + mtd.desc;
-                this.methods.put(key, new MutableMethodInfo(this, mtd, lambdas.contains(this.name + '/' + key)));
+            Map<MethodKey, List<MutableMethodInfo>> bouncers = null;
+            for (MutableMethodInfo method : this.methods.values()) {
+                if (method.getBouncer() != null) {
+                    if (bouncers == null) {
+                        bouncers = new HashMap<>();
+                    }
+                    bouncers.computeIfAbsent(method.getBouncer().getTarget().getKey(), key -> new ArrayList<>(1)).add(method);
+                }
             }
+            this.bouncersByTarget = bouncers;
         }
     }
 
-    /**
-     * Returns the target method handle of the lambda expression represented by the given InvokeDynamicInsnNode.
-     *
-     * @param idn the InvokeDynamicInsnNode representing the lambda expression
-     * @return the target method handle of the lambda expression, or null if the given InvokeDynamicInsnNode does not represent a lambda expression
-     * @throws NullPointerException if the given InvokeDynamicInsnNode is null
-     */
-    private Handle getLambdaTarget(InvokeDynamicInsnNode idn) {
-        if (LAMBDA_METAFACTORY.equals(idn.bsm) && idn.bsmArgs != null && idn.bsmArgs.length == 3 && idn.bsmArgs[1] instanceof Handle) {
-            return ((Handle) idn.bsmArgs[1]);
-        }
-        if (LAMBDA_ALTMETAFACTORY.equals(idn.bsm) && idn.bsmArgs != null && idn.bsmArgs.length == 5 && idn.bsmArgs[1] instanceof Handle) {
-            return ((Handle) idn.bsmArgs[1]);
-        }
-        return null;
-    }
-
     public String getName() {
         return name;
     }
@@ -106,8 +84,8 @@ public class MutableClassInfo implements MutableSecuredObjectInfo {
         return interfaces == null ? Collections.emptyList() : interfaces;
     }
 
-    public Integer getAccess() {
-        return access == null ? 0 : access;
+    public int getAccess() {
+        return access;
     }
 
     public String getSignature() {
@@ -118,14 +96,43 @@ public class MutableClassInfo implements MutableSecuredObjectInfo {
         return fields == null ? Collections.emptyMap() : fields;
     }
 
-    public Map<String, MutableMethodInfo> getMethods() {
+    public Map<MethodKey, MutableMethodInfo> getMethods() {
         return methods == null ? Collections.emptyMap() : methods;
     }
 
+    /**
+     * Returns the bouncer methods of this class which target a method with the given key, in declaration order.
+     * 
+     * @param key The method key of the bouncer target, made up of its name and descriptor.
+     * @return Returns the bouncers targeting the method, or an empty list if there are none.
+     */
+    public List<MutableMethodInfo> getBouncersTargeting(final MethodKey key) {
+        if (bouncersByTarget == null)
+            return Collections.emptyList();
+
+        return bouncersByTarget.getOrDefault(key, Collections.emptyList());
+    }
+
+    /**
+     * Returns the result of the given analysis pass for this class, see {@link CodeTree#addAnalysisPass(ClassAnalysisPass)}.
+     * 
+     * @param pass The analysis pass.
+     * @param <T> The type of the analysis result.
+     * @return Returns the result of the analysis, or null if the pass did not analyse the class.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getAnalysis(final ClassAnalysisPass<T> pass) {
+        return analyses == null ? null : (T) analyses.get(pass);
+    }
+
     public boolean isRecord() {
         return isRecord;
     }
 
+    public boolean isLibrary() {
+        return library;
+    }
+
     public boolean isResolved() {
         return resolved;
     }
@@ -135,10 +142,13 @@ public class MutableClassInfo implements MutableSecuredObjectInfo {
     }
 
     public void addRecord(final String name, final String desc) {
+        if (this.records == null) {
+            this.records = new LinkedHashMap<>();
+        }
         this.records.put(name, new MutableRecordInfo(name, desc));
     }
 
     public Map<String, MutableRecordInfo> getRecords() {
-        return records;
+        return records == null ? Collections.emptyMap() : records;
     }
 }
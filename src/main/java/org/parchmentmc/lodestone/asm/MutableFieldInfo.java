@@ -1,21 +1,20 @@
 package org.parchmentmc.lodestone.asm;
 
-import org.objectweb.asm.tree.FieldNode;
-
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
 public class MutableFieldInfo implements MutableSecuredObjectInfo {
     private final transient String name;
     private final transient String desc;
-    private final Integer access;
+    private final int access;
     private final String signature;
-    private final Set<MutableMethodReferenceInfo> getters = new LinkedHashSet<>();
+    private Set<MutableMethodReferenceInfo> getters;
 
-    MutableFieldInfo(final MutableClassInfo classInfo, final FieldNode node) {
-        this.name = node.name;
-        this.desc = node.desc;
-        this.access = node.access == 0 ? null : node.access;
+    MutableFieldInfo(final MutableClassInfo classInfo, final ClassShape.FieldShape node, final SymbolTable symbols) {
+        this.name = symbols.intern(node.name);
+        this.desc = symbols.intern(node.desc);
+        this.access = node.access;
         this.signature = node.signature;
 
         if (classInfo.isRecord() && !this.isStatic() && this.isFinal()) {
@@ -31,8 +30,8 @@ public class MutableFieldInfo implements MutableSecuredObjectInfo {
         return desc == null ? "" : desc;
     }
 
-    public Integer getAccess() {
-        return access == null ? 0 : access;
+    public int getAccess() {
+        return access;
     }
 
     public String getSignature() {
@@ -40,6 +39,18 @@ public class MutableFieldInfo implements MutableSecuredObjectInfo {
     }
 
     public Set<MutableMethodReferenceInfo> getGetters() {
-        return getters;
+        return getters == null ? Collections.emptySet() : getters;
+    }
+
+    /**
+     * Adds a getter that returns this field, the set of getters is only allocated for fields that have any.
+     * 
+     * @param getter The method reference of the getter.
+     */
+    public void addGetter(final MutableMethodReferenceInfo getter) {
+        if (getters == null) {
+            getters = new LinkedHashSet<>(2);
+        }
+        getters.add(getter);
     }
 }
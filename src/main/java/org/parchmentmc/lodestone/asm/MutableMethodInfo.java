@@ -1,15 +1,6 @@
 package org.parchmentmc.lodestone.asm;
 
 import org.objectweb.asm.Opcodes;
-import org.objectweb.asm.Type;
-import org.objectweb.asm.tree.AbstractInsnNode;
-import org.objectweb.asm.tree.FieldInsnNode;
-import org.objectweb.asm.tree.JumpInsnNode;
-import org.objectweb.asm.tree.LabelNode;
-import org.objectweb.asm.tree.LineNumberNode;
-import org.objectweb.asm.tree.MethodInsnNode;
-import org.objectweb.asm.tree.MethodNode;
-import org.objectweb.asm.tree.VarInsnNode;
 
 import java.util.Set;
 
@@ -17,101 +8,61 @@ public class MutableMethodInfo implements MutableSecuredObjectInfo {
     private final MutableClassInfo mutableClassInfo;
     private final boolean isLambda;
     private final MutableMethodReferenceInfo method;
-    private final Integer access;
-    private final String signature;
+    private final int access;
     private final MutableBouncerInfo bouncer;
     private String force;
     private Set<MutableMethodReferenceInfo> overrides;
     private MutableMethodReferenceInfo parent;
 
-    MutableMethodInfo(final MutableClassInfo mutableClassInfo, MethodNode node, boolean lambda) {
+    MutableMethodInfo(final MutableClassInfo mutableClassInfo, MethodShape shape, boolean lambda, SymbolTable symbols) {
         this.mutableClassInfo = mutableClassInfo;
-        this.method = new MutableMethodReferenceInfo(mutableClassInfo.getName(), node.name, node.desc, node.signature);
-        this.access = node.access == 0 ? null : node.access;
-        this.signature = node.signature;
+        this.method = new MutableMethodReferenceInfo(symbols, mutableClassInfo.getName(), shape.getName(), shape.getDesc(), shape.getSignature());
+        this.access = shape.getAccess();
         this.isLambda = lambda;
 
         MutableBouncerInfo bounce = null;
-        if (!lambda && (node.access & (Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE)) != 0 && (node.access & Opcodes.ACC_STATIC) == 0) {
-            AbstractInsnNode start = node.instructions.getFirst();
-            if (start instanceof LabelNode && start.getNext() instanceof LineNumberNode) {
-                start = start.getNext().getNext();
-            }
-
-            if (start instanceof VarInsnNode) {
-                VarInsnNode n = (VarInsnNode) start;
-                if (n.var == 0 && n.getOpcode() == Opcodes.ALOAD) {
-                    AbstractInsnNode end = node.instructions.getLast();
-                    if (end instanceof LabelNode) {
-                        end = end.getPrevious();
-                    }
-
-                    if (end.getOpcode() >= Opcodes.IRETURN && end.getOpcode() <= Opcodes.RETURN) {
-                        end = end.getPrevious();
-                    }
-
-                    if (end instanceof MethodInsnNode) {
-                        Type[] args = Type.getArgumentTypes(node.desc);
-                        int var = 1;
-                        int index = 0;
-                        start = start.getNext();
-                        while (start != end) {
-                            if (start instanceof VarInsnNode) {
-                                if (((VarInsnNode) start).var != var || index + 1 > args.length) {
-                                    //Arguments are switched around, so seems like lambda!
-                                    end = null;
-                                    break;
-                                }
-                                var += args[index++].getSize();
-                            } else //noinspection StatementWithEmptyBody -> we want to break if we hit something else
-                                if (start.getOpcode() == Opcodes.INSTANCEOF || start.getOpcode() == Opcodes.CHECKCAST) {
-                                    //Valid!
-                                } else {
-                                    // Anything else is invalid in a bouncer {As far as I know}, so we're most likely a lambda
-                                    end = null;
-                                    break;
-                                }
-                            start = start.getNext();
-                        }
-
-                        MethodInsnNode mtd = (MethodInsnNode) end;
-                        if (end != null && mtd.owner.equals(mutableClassInfo.getName())
-                                && Type.getArgumentsAndReturnSizes(node.desc) == Type.getArgumentsAndReturnSizes(mtd.desc)) {
-                            bounce = new MutableBouncerInfo(new MutableMethodReferenceInfo(mtd.owner, mtd.name, mtd.desc, null));
-                        }
-                    }
-                }
+        if (!lambda && isBouncerCandidate(shape.getAccess())) {
+            MutableMethodReferenceInfo target = shape.findBouncerTarget(symbols);
+            if (target != null) {
+                bounce = new MutableBouncerInfo(target);
             }
         }
         this.bouncer = bounce;
 
         //Check if we are a getter!.
         //Required to link record fields.
-        if (mutableClassInfo.isRecord() && !this.isStatic() && this.method.getDesc().contains("()") && mutableClassInfo.getFields() != null) {
-            AbstractInsnNode start = node.instructions.getFirst();
-            if (start instanceof LabelNode && start.getNext() instanceof LineNumberNode)
-                start = start.getNext().getNext();
-
-            if (start instanceof VarInsnNode) {
-                VarInsnNode instructionNode = (VarInsnNode) start;
-                if (instructionNode.var == 0 && instructionNode.getOpcode() == Opcodes.ALOAD) {
-                    if (start.getNext() instanceof FieldInsnNode) {
-                        FieldInsnNode fieldInstruction = (FieldInsnNode) start.getNext();
-                        if (fieldInstruction.owner.equals(mutableClassInfo.getName()) && fieldInstruction.getNext() != null) {
-                            AbstractInsnNode ret = fieldInstruction.getNext();
-                            if (ret instanceof JumpInsnNode || (ret.getOpcode() >= Opcodes.IRETURN && ret.getOpcode() <= Opcodes.RETURN)) {
-                                MutableFieldInfo returnedFieldInfo = mutableClassInfo.getFields().get(fieldInstruction.name);
-                                if (returnedFieldInfo != null) {
-                                    returnedFieldInfo.getGetters().add(getMethod());
-                                }
-                            }
-                        }
-                    }
+        if (!mutableClassInfo.isLibrary() && mutableClassInfo.isRecord() && isGetterCandidate(shape.getAccess(), shape.getDesc()) && mutableClassInfo.getFields() != null) {
+            String fieldName = shape.findGetterField();
+            if (fieldName != null) {
+                MutableFieldInfo returnedFieldInfo = mutableClassInfo.getFields().get(fieldName);
+                if (returnedFieldInfo != null) {
+                    returnedFieldInfo.addGetter(getMethod());
                 }
             }
         }
     }
 
+    /**
+     * Checks if a method with the given access flags can be a bouncer, which requires it to be a synthetic or bridge instance method.
+     * 
+     * @param access The access flags of the method.
+     * @return Returns true if the method needs to be inspected for a bouncer target.
+     */
+    static boolean isBouncerCandidate(final int access) {
+        return (access & (Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE)) != 0 && (access & Opcodes.ACC_STATIC) == 0;
+    }
+
+    /**
+     * Checks if a method with the given access flags and descriptor can be a record getter, which requires it to be an instance method without parameters.
+     * 
+     * @param access The access flags of the method.
+     * @param desc The method descriptor.
+     * @return Returns true if the method needs to be inspected for a returned field, if it is declared in a record.
+     */
+    static boolean isGetterCandidate(final int access, final String desc) {
+        return (access & Opcodes.ACC_STATIC) == 0 && desc.contains("()");
+    }
+
     public MutableClassInfo getMutableClassInfo() {
         return mutableClassInfo;
     }
@@ -124,12 +75,17 @@ public class MutableMethodInfo implements MutableSecuredObjectInfo {
         return method;
     }
 
-    public Integer getAccess() {
-        return access == null ? 0 : access;
+    public int getAccess() {
+        return access;
     }
 
+    /**
+     * Returns the generic signature of the method, which is shared with its method reference.
+     * 
+     * @return Returns the signature, or an empty string if the method has none.
+     */
     public String getSignature() {
-        return signature == null ? "" : signature;
+        return method.getSignature();
     }
 
     public MutableBouncerInfo getBouncer() {
@@ -5,12 +5,41 @@ public class MutableMethodReferenceInfo implements Comparable<MutableMethodRefer
     private final String name;
     private final String desc;
     private final String signature;
+    private final MethodKey key;
+    private final int hash;
 
-    MutableMethodReferenceInfo(String owner, String name, String desc, String signature) {
+    /**
+     * Main Constructor
+     * 
+     * @param symbols The symbol table of the code tree the method belongs to.
+     * @param owner The name of the class that owns the method.
+     * @param name The method name.
+     * @param desc The method descriptor.
+     * @param signature The generic signature of the method, may be null.
+     */
+    MutableMethodReferenceInfo(SymbolTable symbols, String owner, String name, String desc, String signature) {
+        this(symbols.intern(owner), symbols.intern(name), symbols.intern(desc), signature, symbols.methodKey(name, desc));
+    }
+
+    private MutableMethodReferenceInfo(String owner, String name, String desc, String signature, MethodKey key) {
         this.owner = owner;
         this.name = name;
         this.desc = desc;
         this.signature = signature;
+        this.key = key;
+        this.hash = 31 * owner.hashCode() + key.hashCode();
+    }
+
+    /**
+     * Creates a reference to the same method, declared in the given class with the given signature.
+     * The symbols of this reference are shared, so no new symbols are created.
+     * 
+     * @param owner The name of the class that owns the method, taken from the same symbol table.
+     * @param signature The generic signature of the method, may be null.
+     * @return Returns the new method reference.
+     */
+    MutableMethodReferenceInfo withOwner(String owner, String signature) {
+        return new MutableMethodReferenceInfo(owner, name, desc, signature, key);
     }
 
     public String getOwner() {
@@ -29,6 +58,15 @@ public class MutableMethodReferenceInfo implements Comparable<MutableMethodRefer
         return signature == null ? "" : signature;
     }
 
+    /**
+     * Returns the key of the method, made up of its name and descriptor, which identifies the method within its class.
+     * 
+     * @return Returns the method key.
+     */
+    public MethodKey getKey() {
+        return key;
+    }
+
     @Override
     public String toString() {
         return this.owner + '/' + this.name + this.desc;
@@ -36,12 +74,25 @@ public class MutableMethodReferenceInfo implements Comparable<MutableMethodRefer
 
     @Override
     public int hashCode() {
-        return this.toString().hashCode();
+        return hash;
     }
 
+    /**
+     * Compares the owner, name and descriptor of the referenced methods, the signature is not taken into account.
+     * The hashes are compared first, and the symbols are shared, so references are compared without building any strings.
+     * 
+     * @param o The object being compared to.
+     * @return Returns true if both reference the same method of the same class.
+     */
     @Override
     public boolean equals(Object o) {
-        return o instanceof MutableMethodReferenceInfo && o.toString().equals(toString());
+        if (this == o)
+            return true;
+        if (!(o instanceof MutableMethodReferenceInfo))
+            return false;
+
+        final MutableMethodReferenceInfo other = (MutableMethodReferenceInfo) o;
+        return hash == other.hash && owner.equals(other.owner) && key.equals(other.key);
     }
 
     private int compare(int a, int b) {
@@ -1,12 +1,14 @@
 package org.parchmentmc.lodestone.asm;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
 public class MutableRecordInfo {
     private final String name;
     private final String desc;
-    private final Set<MutableMethodReferenceInfo> getters = new LinkedHashSet<>();
+    private Set<MutableMethodReferenceInfo> getters;
 
     public MutableRecordInfo(final String name, final String desc) {
         this.name = name;
@@ -22,6 +24,18 @@ public class MutableRecordInfo {
     }
 
     public Set<MutableMethodReferenceInfo> getGetters() {
-        return getters;
+        return getters == null ? Collections.emptySet() : getters;
+    }
+
+    /**
+     * Adds the getters of the record component, the set of getters is only allocated for components that have any.
+     * 
+     * @param getters The method references of the getters.
+     */
+    public void addGetters(final Collection<MutableMethodReferenceInfo> getters) {
+        if (this.getters == null) {
+            this.getters = new LinkedHashSet<>(getters.size() * 2);
+        }
+        this.getters.addAll(getters);
     }
 }
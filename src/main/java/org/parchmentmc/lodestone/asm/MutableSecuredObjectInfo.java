@@ -3,7 +3,7 @@ package org.parchmentmc.lodestone.asm;
 import org.objectweb.asm.Opcodes;
 
 public interface MutableSecuredObjectInfo {
-    Integer getAccess();
+    int getAccess();
 
     default boolean isInterface() {
         return ((getAccess() & Opcodes.ACC_INTERFACE) != 0);
@@ -0,0 +1,156 @@
+package org.parchmentmc.lodestone.asm;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable, insertion ordered set of the methods a method overrides, backed by a plain array.
+ * Override sets are interned by their content through an {@link Interner}, so all methods that override
+ * the same methods share a single instance. Like any set, it is compared without regard to the order of its elements,
+ * the interner however tells sets apart by their order and the signatures of their elements, as both end up in the metadata.
+ */
+final class OverrideSet extends AbstractSet<MutableMethodReferenceInfo> {
+    private static final MutableMethodReferenceInfo[] NO_METHODS = new MutableMethodReferenceInfo[0];
+
+    private final MutableMethodReferenceInfo[] methods;
+    private final int hash;
+
+    private OverrideSet(final MutableMethodReferenceInfo[] methods) {
+        this.methods = methods;
+        int hash = 0;
+        for (MutableMethodReferenceInfo method : methods) {
+            hash += method.hashCode();
+        }
+        this.hash = hash;
+    }
+
+    @Override
+    public Iterator<MutableMethodReferenceInfo> iterator() {
+        return new Iterator<MutableMethodReferenceInfo>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < methods.length;
+            }
+
+            @Override
+            public MutableMethodReferenceInfo next() {
+                if (next == methods.length)
+                    throw new NoSuchElementException();
+                return methods[next++];
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return methods.length;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        for (MutableMethodReferenceInfo method : methods) {
+            if (method.equals(o))
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Checks if both sets hold the same methods with the same signatures in the same order.
+     *
+     * @param other The other override set.
+     * @return Returns true if the sets can be shared.
+     */
+    private boolean sameContent(final OverrideSet other) {
+        if (hash != other.hash || methods.length != other.methods.length)
+            return false;
+
+        for (int i = 0; i < methods.length; i++) {
+            if (!methods[i].equals(other.methods[i]) || !methods[i].getSignature().equals(other.methods[i].getSignature()))
+                return false;
+        }
+        return true;
+    }
+
+    private int contentHash() {
+        int contentHash = 1;
+        for (MutableMethodReferenceInfo method : methods) {
+            contentHash = 31 * (31 * contentHash + method.hashCode()) + method.getSignature().hashCode();
+        }
+        return contentHash;
+    }
+
+    /**
+     * Hands out the shared instance of every distinct override set, it can be used from several threads at once.
+     */
+    static final class Interner {
+        private final Map<Content, OverrideSet> sets = new ConcurrentHashMap<>();
+
+        /**
+         * Returns the shared override set with the given methods, in iteration order.
+         *
+         * @param methods The overridden methods, without duplicates.
+         * @return Returns the shared override set.
+         */
+        OverrideSet intern(final Collection<MutableMethodReferenceInfo> methods) {
+            return intern(new OverrideSet(methods.toArray(NO_METHODS)));
+        }
+
+        /**
+         * Returns the shared override set with the methods of the given set, followed by the given method unless it is part of the set already.
+         *
+         * @param set The override set being extended.
+         * @param method The method being added.
+         * @return Returns the shared override set, which is the given set if it already holds the method.
+         */
+        OverrideSet with(final OverrideSet set, final MutableMethodReferenceInfo method) {
+            if (set.contains(method))
+                return set;
+
+            final MutableMethodReferenceInfo[] methods = Arrays.copyOf(set.methods, set.methods.length + 1);
+            methods[set.methods.length] = method;
+            return intern(new OverrideSet(methods));
+        }
+
+        private OverrideSet intern(final OverrideSet set) {
+            final Content content = new Content(set);
+            final OverrideSet existing = sets.putIfAbsent(content, set);
+            return existing != null ? existing : set;
+        }
+    }
+
+    /**
+     * The order and signature sensitive identity of an override set in the {@link Interner}.
+     */
+    private static final class Content {
+        private final OverrideSet set;
+        private final int hash;
+
+        private Content(final OverrideSet set) {
+            this.set = set;
+            this.hash = set.contentHash();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof Content && hash == ((Content) o).hash && set.sameContent(((Content) o).set);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.parchmentmc.lodestone.asm;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A table of the class names, method names, descriptors and {@link MethodKey method keys} used by the classes of a {@link CodeTree}.
+ * Every distinct symbol is stored once and shared by all metadata that refers to it, so symbols taken from the
+ * same table are equal exactly when they are the same instance.
+ */
+final class SymbolTable {
+
+    private final Map<String, String> symbols = new ConcurrentHashMap<>();
+
+    /**
+     * The shared method keys, keyed by name and then by descriptor, so a known key is found without creating a key to look it up with.
+     */
+    private final Map<String, Map<String, MethodKey>> methodKeys = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the shared instance of the given symbol, registering it if it is not known yet.
+     * 
+     * @param symbol The symbol, may be null.
+     * @return Returns the shared instance of the symbol, or null if the symbol is null.
+     */
+    String intern(final String symbol) {
+        if (symbol == null)
+            return null;
+
+        final String existing = symbols.putIfAbsent(symbol, symbol);
+        return existing != null ? existing : symbol;
+    }
+
+    /**
+     * Returns the shared key of a method with the given name and descriptor, which identifies the method within its class.
+     * A key is only created the first time a method with the given name and descriptor is seen.
+     * 
+     * @param name The method name.
+     * @param desc The method descriptor.
+     * @return Returns the shared instance of the method key.
+     */
+    MethodKey methodKey(final String name, final String desc) {
+        Map<String, MethodKey> keys = methodKeys.get(name);
+        if (keys == null) {
+            keys = methodKeys.computeIfAbsent(intern(name), key -> new ConcurrentHashMap<>(2));
+        }
+
+        final MethodKey known = keys.get(desc);
+        if (known != null)
+            return known;
+
+        final MethodKey key = new MethodKey(intern(name), intern(desc));
+        final MethodKey existing = keys.putIfAbsent(key.getDesc(), key);
+        return existing != null ? existing : key;
+    }
+}
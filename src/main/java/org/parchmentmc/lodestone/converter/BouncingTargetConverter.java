@@ -6,6 +6,21 @@ import org.parchmentmc.lodestone.asm.MutableBouncerInfo;
 
 public class BouncingTargetConverter {
 
+    private final ReferenceConverter methodReferenceConverter;
+
+    public BouncingTargetConverter() {
+        this(new ReferenceConverter());
+    }
+
+    /**
+     * Creates a converter which converts the target and owner references through the given converter.
+     *
+     * @param methodReferenceConverter the converter of the method references
+     */
+    public BouncingTargetConverter(final ReferenceConverter methodReferenceConverter) {
+        this.methodReferenceConverter = methodReferenceConverter;
+    }
+
     /**
      * Converts the given MutableBouncerInfo object into a BouncingTargetMetadata object.
      *
@@ -14,8 +29,6 @@ public class BouncingTargetConverter {
      * @throws ReferenceConversionException if an error occurs while converting a method reference in the MutableBouncerInfo object
      */
     public BouncingTargetMetadata convert(final MutableBouncerInfo bouncerInfo) {
-        final ReferenceConverter methodReferenceConverter = new ReferenceConverter();
-
         if (bouncerInfo == null)
             return null;
 
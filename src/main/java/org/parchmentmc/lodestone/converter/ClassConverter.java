@@ -2,12 +2,34 @@ package org.parchmentmc.lodestone.converter;
 
 import org.parchmentmc.feather.metadata.ClassMetadata;
 import org.parchmentmc.feather.metadata.ClassMetadataBuilder;
-import org.parchmentmc.feather.named.NamedBuilder;
 import org.parchmentmc.feather.util.CollectorUtils;
 import org.parchmentmc.lodestone.asm.MutableClassInfo;
 
 public class ClassConverter {
 
+    private final NamedCache names;
+    private final MethodConverter methodConverter;
+    private final FieldConverter fieldConverter;
+    private final RecordConverter recordConverter;
+
+    public ClassConverter() {
+        this(new NamedCache());
+    }
+
+    /**
+     * Creates a converter which shares the names of all converted metadata through the given cache.
+     * A converter holds no state besides its caches, so it can convert classes from several threads at once.
+     *
+     * @param names the cache the names are taken from
+     */
+    public ClassConverter(final NamedCache names) {
+        final ReferenceConverter referenceConverter = new ReferenceConverter(names);
+        this.names = names;
+        this.methodConverter = new MethodConverter(names, referenceConverter);
+        this.fieldConverter = new FieldConverter(names);
+        this.recordConverter = new RecordConverter(names, referenceConverter);
+    }
+
     /**
      * Converts the given MutableClassInfo object into a ClassMetadata object.
      *
@@ -16,16 +38,12 @@ public class ClassConverter {
      * @throws ReferenceConversionException if an error occurs while converting a reference in the MutableClassInfo object
      */
     public ClassMetadata convert(final MutableClassInfo classInfo) {
-        final MethodConverter methodConverter = new MethodConverter();
-        final FieldConverter fieldConverter = new FieldConverter();
-        final RecordConverter recordConverter = new RecordConverter();
-
         final ClassMetadataBuilder classMetadataBuilder = ClassMetadataBuilder.create()
-                .withName(NamedBuilder.create().withObfuscated(classInfo.getName()).build())
-                .withSuperName(NamedBuilder.create().withObfuscated(classInfo.getSuperName()).build())
+                .withName(names.obfuscated(classInfo.getName()))
+                .withSuperName(names.obfuscated(classInfo.getSuperName()))
                 .withSecuritySpecifications(classInfo.getAccess())
-                .withSignature(NamedBuilder.create().withObfuscated(classInfo.getSignature()).build())
-                .withInterfaces(classInfo.getInterfaces().stream().map(interfaceName -> NamedBuilder.create().withObfuscated(interfaceName).build()).collect(CollectorUtils.toLinkedSet()))
+                .withSignature(names.obfuscated(classInfo.getSignature()))
+                .withInterfaces(classInfo.getInterfaces().stream().map(names::obfuscated).collect(CollectorUtils.toLinkedSet()))
                 .withFields(classInfo.getFields().values().stream().map(fieldInfo -> fieldConverter.convert(classInfo, fieldInfo)).collect(CollectorUtils.toLinkedSet()))
                 .withMethods(classInfo.getMethods().values().stream().map(methodInfo -> methodConverter.convert(classInfo, methodInfo)).collect(CollectorUtils.toLinkedSet()))
                 .withRecords(
@@ -35,7 +53,7 @@ public class ClassConverter {
 
         if (classInfo.getName().contains("$")) {
             final String outerName = classInfo.getName().substring(0, classInfo.getName().lastIndexOf("$"));
-            classMetadataBuilder.withOwner(NamedBuilder.create().withObfuscated(outerName).build());
+            classMetadataBuilder.withOwner(names.obfuscated(outerName));
         }
 
         return classMetadataBuilder.build();
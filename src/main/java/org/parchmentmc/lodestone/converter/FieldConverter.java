@@ -2,12 +2,26 @@ package org.parchmentmc.lodestone.converter;
 
 import org.parchmentmc.feather.metadata.FieldMetadata;
 import org.parchmentmc.feather.metadata.FieldMetadataBuilder;
-import org.parchmentmc.feather.named.NamedBuilder;
 import org.parchmentmc.lodestone.asm.MutableClassInfo;
 import org.parchmentmc.lodestone.asm.MutableFieldInfo;
 
 public class FieldConverter {
 
+    private final NamedCache names;
+
+    public FieldConverter() {
+        this(new NamedCache());
+    }
+
+    /**
+     * Creates a converter which shares the names of the fields through the given cache.
+     *
+     * @param names the cache the names of the fields are taken from
+     */
+    public FieldConverter(final NamedCache names) {
+        this.names = names;
+    }
+
     /**
      * Converts the given MutableFieldInfo object into a FieldMetadata object for the specified class.
      *
@@ -17,11 +31,11 @@ public class FieldConverter {
      */
     public FieldMetadata convert(final MutableClassInfo classInfo, final MutableFieldInfo fieldInfo) {
         return FieldMetadataBuilder.create()
-                .withName(NamedBuilder.create().withObfuscated(fieldInfo.getName()).build())
-                .withDescriptor(NamedBuilder.create().withObfuscated(fieldInfo.getDesc()).build())
-                .withSignature(NamedBuilder.create().withObfuscated(fieldInfo.getSignature()).build())
+                .withName(names.obfuscated(fieldInfo.getName()))
+                .withDescriptor(names.obfuscated(fieldInfo.getDesc()))
+                .withSignature(names.obfuscated(fieldInfo.getSignature()))
                 .withSecuritySpecification(fieldInfo.getAccess())
-                .withOwner(NamedBuilder.create().withObfuscated(classInfo.getName()).build())
+                .withOwner(names.obfuscated(classInfo.getName()))
                 .build();
     }
 }
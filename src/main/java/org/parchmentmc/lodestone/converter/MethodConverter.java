@@ -2,13 +2,32 @@ package org.parchmentmc.lodestone.converter;
 
 import org.parchmentmc.feather.metadata.MethodMetadata;
 import org.parchmentmc.feather.metadata.MethodMetadataBuilder;
-import org.parchmentmc.feather.named.NamedBuilder;
 import org.parchmentmc.feather.util.CollectorUtils;
 import org.parchmentmc.lodestone.asm.MutableClassInfo;
 import org.parchmentmc.lodestone.asm.MutableMethodInfo;
 
 public class MethodConverter {
 
+    private final NamedCache names;
+    private final ReferenceConverter methodReferenceConverter;
+    private final BouncingTargetConverter bouncingTargetConverter;
+
+    public MethodConverter() {
+        this(new NamedCache(), new ReferenceConverter());
+    }
+
+    /**
+     * Creates a converter which shares names and references through the given cache and converter.
+     *
+     * @param names the cache the names of the methods are taken from
+     * @param methodReferenceConverter the converter of the overridden, parent and bouncer references
+     */
+    public MethodConverter(final NamedCache names, final ReferenceConverter methodReferenceConverter) {
+        this.names = names;
+        this.methodReferenceConverter = methodReferenceConverter;
+        this.bouncingTargetConverter = new BouncingTargetConverter(methodReferenceConverter);
+    }
+
     /**
      * Converts the given MutableMethodInfo object into a MethodMetadata object for the specified class.
      *
@@ -18,14 +37,11 @@ public class MethodConverter {
      * @throws ReferenceConversionException if an error occurs while converting a reference in the MutableMethodInfo object
      */
     public MethodMetadata convert(final MutableClassInfo classInfo, final MutableMethodInfo mutableMethodInfo) {
-        final ReferenceConverter methodReferenceConverter = new ReferenceConverter();
-        final BouncingTargetConverter bouncingTargetConverter = new BouncingTargetConverter();
-
         return MethodMetadataBuilder.create()
-                .withName(NamedBuilder.create().withObfuscated(mutableMethodInfo.getMethod().getName()).build())
-                .withOwner(NamedBuilder.create().withObfuscated(classInfo.getName()).build())
-                .withDescriptor(NamedBuilder.create().withObfuscated(mutableMethodInfo.getMethod().getDesc()).build())
-                .withSignature(NamedBuilder.create().withObfuscated(mutableMethodInfo.getSignature()).build())
+                .withName(names.obfuscated(mutableMethodInfo.getMethod().getName()))
+                .withOwner(names.obfuscated(classInfo.getName()))
+                .withDescriptor(names.obfuscated(mutableMethodInfo.getMethod().getDesc()))
+                .withSignature(names.obfuscated(mutableMethodInfo.getSignature()))
                 .withSecuritySpecification(mutableMethodInfo.getAccess())
                 .withLambda(mutableMethodInfo.isLambda())
                 .withOverrides(mutableMethodInfo.getOverrides().stream().map(methodReferenceConverter::convert).collect(CollectorUtils.toLinkedSet()))
@@ -0,0 +1,30 @@
+package org.parchmentmc.lodestone.converter;
+
+import org.parchmentmc.feather.named.Named;
+import org.parchmentmc.feather.named.NamedBuilder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A flyweight cache of the obfuscated {@link Named} values built by the converters.
+ * Names are immutable, so every class, member and descriptor name is only built once and shared by all metadata that refers to it.
+ * The cache can be used from several threads at once.
+ */
+public class NamedCache {
+
+    private final Map<String, Named> names = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the shared Named object with the given obfuscated name.
+     *
+     * @param obfuscated the obfuscated name, may be null
+     * @return the shared Named object with the given obfuscated name
+     */
+    public Named obfuscated(final String obfuscated) {
+        if (obfuscated == null)
+            return NamedBuilder.create().withObfuscated(null).build();
+
+        return names.computeIfAbsent(obfuscated, name -> NamedBuilder.create().withObfuscated(name).build());
+    }
+}
@@ -4,7 +4,6 @@ import org.parchmentmc.feather.metadata.RecordMetadata;
 import org.parchmentmc.feather.metadata.RecordMetadataBuilder;
 import org.parchmentmc.feather.metadata.ReferenceBuilder;
 import org.parchmentmc.feather.named.Named;
-import org.parchmentmc.feather.named.NamedBuilder;
 import org.parchmentmc.lodestone.asm.MutableClassInfo;
 import org.parchmentmc.lodestone.asm.MutableFieldInfo;
 import org.parchmentmc.lodestone.asm.MutableMethodReferenceInfo;
@@ -14,6 +13,24 @@ import java.util.Iterator;
 
 public class RecordConverter {
 
+    private final NamedCache names;
+    private final ReferenceConverter referenceConverter;
+
+    public RecordConverter() {
+        this(new NamedCache(), new ReferenceConverter());
+    }
+
+    /**
+     * Creates a converter which shares names and references through the given cache and converter.
+     *
+     * @param names the cache the names of the records are taken from
+     * @param referenceConverter the converter of the getter references
+     */
+    public RecordConverter(final NamedCache names, final ReferenceConverter referenceConverter) {
+        this.names = names;
+        this.referenceConverter = referenceConverter;
+    }
+
     /**
      * Converts the given MutableRecordInfo object into a RecordMetadata object for the specified class.
      *
@@ -23,19 +40,17 @@ public class RecordConverter {
      * @throws ReferenceConversionException if an error occurs while converting a reference in the MutableRecordInfo object
      */
     public RecordMetadata convert(final MutableClassInfo classInfo, final MutableRecordInfo recordInfo) {
-        final ReferenceConverter referenceConverter = new ReferenceConverter();
-
         final MutableFieldInfo mutableFieldInfo = classInfo.getFields().get(recordInfo.getName());
         final MutableMethodReferenceInfo mutableMethodReferenceInfo = getGetter(mutableFieldInfo);
 
-        final Named owner = NamedBuilder.create().withObfuscated(classInfo.getName()).build();
+        final Named owner = names.obfuscated(classInfo.getName());
         return RecordMetadataBuilder.create()
                 .withOwner(owner)
                 .withField(
                         ReferenceBuilder.create()
                                 .withOwner(owner)
-                                .withName(NamedBuilder.create().withObfuscated(recordInfo.getName()).build())
-                                .withDescriptor(NamedBuilder.create().withObfuscated(recordInfo.getDesc()).build())
+                                .withName(names.obfuscated(recordInfo.getName()))
+                                .withDescriptor(names.obfuscated(recordInfo.getDesc()))
                                 .build()
                 )
                 .withGetter(
@@ -2,11 +2,34 @@ package org.parchmentmc.lodestone.converter;
 
 import org.parchmentmc.feather.metadata.Reference;
 import org.parchmentmc.feather.metadata.ReferenceBuilder;
-import org.parchmentmc.feather.named.NamedBuilder;
 import org.parchmentmc.lodestone.asm.MutableMethodReferenceInfo;
 
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class ReferenceConverter {
 
+    private final NamedCache names;
+
+    /**
+     * The converted references, keyed by the method they refer to and its signature, as the same methods are referred to over and over.
+     */
+    private final Map<ReferenceKey, Reference> references = new ConcurrentHashMap<>();
+
+    public ReferenceConverter() {
+        this(new NamedCache());
+    }
+
+    /**
+     * Creates a converter which shares the names of the converted references through the given cache.
+     *
+     * @param names the cache the names of the references are taken from
+     */
+    public ReferenceConverter(final NamedCache names) {
+        this.names = names;
+    }
+
     /**
      * Converts the given MutableMethodReferenceInfo object into a Reference object.
      *
@@ -17,11 +40,38 @@ public class ReferenceConverter {
         if (refInfo == null)
             return null;
 
-        return ReferenceBuilder.create()
-                .withOwner(NamedBuilder.create().withObfuscated(refInfo.getOwner()).build())
-                .withName(NamedBuilder.create().withObfuscated(refInfo.getName()).build())
-                .withDescriptor(NamedBuilder.create().withObfuscated(refInfo.getDesc()).build())
-                .withSignature(NamedBuilder.create().withObfuscated(refInfo.getSignature()).build())
-                .build();
+        return references.computeIfAbsent(new ReferenceKey(refInfo), key -> ReferenceBuilder.create()
+                .withOwner(names.obfuscated(refInfo.getOwner()))
+                .withName(names.obfuscated(refInfo.getName()))
+                .withDescriptor(names.obfuscated(refInfo.getDesc()))
+                .withSignature(names.obfuscated(refInfo.getSignature()))
+                .build());
+    }
+
+    /**
+     * Identifies a converted reference, method references alone do not tell references with different signatures apart.
+     */
+    private static final class ReferenceKey {
+        private final MutableMethodReferenceInfo method;
+        private final int hash;
+
+        private ReferenceKey(final MutableMethodReferenceInfo method) {
+            this.method = method;
+            this.hash = 31 * method.hashCode() + Objects.hashCode(method.getSignature());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof ReferenceKey))
+                return false;
+
+            final ReferenceKey other = (ReferenceKey) o;
+            return hash == other.hash && method.equals(other.method) && Objects.equals(method.getSignature(), other.method.getSignature());
+        }
     }
 }
@@ -1,14 +1,15 @@
 package org.parchmentmc.lodestone.tasks;
 
 import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.Internal;
 import org.parchmentmc.feather.metadata.*;
 import org.parchmentmc.feather.named.Named;
 import org.parchmentmc.feather.util.CollectorUtils;
 import org.parchmentmc.feather.util.SimpleVersion;
-import org.parchmentmc.lodestone.asm.CodeCleaner;
-import org.parchmentmc.lodestone.asm.CodeTree;
-import org.parchmentmc.lodestone.asm.MutableClassInfo;
+import org.parchmentmc.lodestone.asm.*;
 import org.parchmentmc.lodestone.converter.ClassConverter;
 
 import java.io.File;
@@ -17,10 +18,16 @@ import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Function;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
@@ -30,10 +37,15 @@ import java.util.stream.Stream;
 public abstract class ExtractMetadataFromJarFiles extends ExtractMetadataTask {
 
     /**
-     * Constructs a new ExtractMetadataFromJarFiles task and sets the default output location for the metadata JSON file.
+     * Constructs a new ExtractMetadataFromJarFiles task and sets the default output location for the metadata JSON file,
+     * the default number of threads used to read the library jar files, and turns off loading the JDK classes and
+     * cleaning the game classes in parallel by default.
      */
     public ExtractMetadataFromJarFiles() {
         this.getOutput().convention(getProject().getLayout().getBuildDirectory().dir(getName()).map(d -> d.file("metadata.json")));
+        this.getThreads().convention(Runtime.getRuntime().availableProcessors());
+        this.getIncludeJdk().convention(false);
+        this.getParallelCleaning().convention(false);
     }
 
     /**
@@ -47,34 +59,56 @@ public abstract class ExtractMetadataFromJarFiles extends ExtractMetadataTask {
     @Override
     protected SourceMetadata extractMetadata(File clientJarFile) throws IOException {
         final File librariesDirectory = this.getLibraries().getAsFile().get();
+        final LibraryHierarchyCache libraryCache = this.getLibraryCache().isPresent() ? new LibraryHierarchyCache(this.getLibraryCache().getAsFile().get().toPath()) : null;
+        final ClassByteStore classByteStore = this.getClassMemoryBudget().isPresent() ? new BudgetedClassByteStore(this.getClassMemoryBudget().get()) : new HeapClassByteStore();
+
+        final Map<String, ClassMetadata> cleanedClassMetadata;
+        try (CodeTree codeTree = new CodeTree(libraryCache, classByteStore)) {
+            codeTree.load(clientJarFile.toPath(), false);
+            final Set<String> minecraftJarClasses = codeTree.getNoneLibraryClasses();
+
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("regex:.+\\.jar");
+            final ForkJoinPool pool = new ForkJoinPool(Math.max(1, getThreads().get()));
+            final Map<String, MutableClassInfo> asmParsedClassInfo;
+            try {
+                // The game classes do not depend on the libraries, so they are parsed while the library jar files are loaded
+                final ForkJoinTask<?> parsing = pool.submit(() -> minecraftJarClasses.parallelStream().forEach(codeTree::getClassMetadataFor));
+                try (Stream<Path> libraries = Files.find(librariesDirectory.toPath(), 999, (path, basicFileAttributes) -> basicFileAttributes.isRegularFile() && matcher.matches(path))) {
+                    codeTree.loadAll(libraries.collect(CollectorUtils.toLinkedSet()), true, pool);
+                }
+                if (getIncludeJdk().get()) {
+                    codeTree.loadJdk();
+                }
+                parsing.join();
 
-        final CodeTree codeTree = new CodeTree();
-        codeTree.load(clientJarFile.toPath(), false);
+                asmParsedClassInfo = minecraftJarClasses.stream().collect(CollectorUtils.toLinkedMap(
+                        Function.identity(),
+                        codeTree::getClassMetadataFor
+                ));
 
-        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("regex:.+\\.jar");
-        try (Stream<Path> libraries = Files.find(librariesDirectory.toPath(), 999, (path, basicFileAttributes) -> basicFileAttributes.isRegularFile() && matcher.matches(path))) {
-            for (Path libraryFile : libraries.collect(CollectorUtils.toLinkedSet())) {
-                codeTree.load(libraryFile, true);
-            }
-        }
+                final CodeCleaner codeCleaner = new CodeCleaner(codeTree);
+                if (getParallelCleaning().get()) {
+                    codeCleaner.cleanClasses(asmParsedClassInfo.values(), pool);
+                } else {
+                    asmParsedClassInfo.values().forEach(codeCleaner::cleanClass);
+                }
 
-        final Set<String> minecraftJarClasses = codeTree.getNoneLibraryClasses();
-        final Map<String, MutableClassInfo> asmParsedClassInfo = minecraftJarClasses.stream().collect(CollectorUtils.toLinkedMap(
-                Function.identity(),
-                codeTree::getClassMetadataFor
-        ));
-
-        final CodeCleaner codeCleaner = new CodeCleaner(codeTree);
-        asmParsedClassInfo.values().forEach(codeCleaner::cleanClass);
-
-        final ClassConverter classConverter = new ClassConverter();
-        final Map<String, ClassMetadata> cleanedClassMetadata = minecraftJarClasses.stream().collect(CollectorUtils.toLinkedMap(
-                Function.identity(),
-                name -> {
-                    final MutableClassInfo classInfo = asmParsedClassInfo.get(name);
-                    return classConverter.convert(classInfo);
+                // The cleaned classes are only read from here on, so they are converted in parallel and collected in the original order
+                final ClassConverter classConverter = new ClassConverter();
+                final List<String> names = new ArrayList<>(minecraftJarClasses);
+                final ClassMetadata[] converted = new ClassMetadata[names.size()];
+                pool.submit(() -> IntStream.range(0, converted.length).parallel().forEach(
+                        index -> converted[index] = classConverter.convert(asmParsedClassInfo.get(names.get(index)))
+                )).join();
+
+                cleanedClassMetadata = new LinkedHashMap<>(converted.length * 2);
+                for (int index = 0; index < converted.length; index++) {
+                    cleanedClassMetadata.put(names.get(index), converted[index]);
                 }
-        ));
+            } finally {
+                pool.shutdownNow();
+            }
+        }
 
         final SourceMetadata baseDataSet = SourceMetadataBuilder.create()
                 .withSpecVersion(SimpleVersion.of("1.0.0"))
@@ -136,4 +170,54 @@ public abstract class ExtractMetadataFromJarFiles extends ExtractMetadataTask {
      */
     @InputDirectory
     public abstract DirectoryProperty getLibraries();
+
+    /**
+     * Returns the maximum number of threads used to read the library jar files and parse the game classes in parallel.
+     * Defaults to the number of available processors.
+     *
+     * @return the maximum number of threads used to read the library jar files and parse the game classes
+     */
+    @Internal
+    public abstract Property<Integer> getThreads();
+
+    /**
+     * Returns the directory the class hierarchies of the library jar files are cached in, keyed by the SHA-256 hash of
+     * the contents of each jar, so a jar that is downloaded again for another Minecraft version still hits the cache.
+     * Filling the cache makes the first run slower, so it only pays off for repeated runs over the same libraries.
+     * If unset, which is the default, the library jar files are read directly.
+     *
+     * @return the directory the class hierarchies of the library jar files are cached in
+     */
+    @Internal
+    public abstract DirectoryProperty getLibraryCache();
+
+    /**
+     * Returns the number of bytes of game class files kept on the heap as is while they wait to be parsed.
+     * Class files beyond this budget are not kept at all, but read again from the client jar, which stays open until
+     * they are parsed. If unset, all class files are kept as is.
+     *
+     * @return the number of bytes of game class files kept on the heap as is
+     */
+    @Internal
+    public abstract Property<Long> getClassMemoryBudget();
+
+    /**
+     * Returns whether the classes of the JDK the build runs on are loaded after the library jar files, so overrides of
+     * JDK methods are resolved as well. If the library cache is set, the JDK classes are indexed once per JDK in it.
+     * Otherwise every run lists all classes of the JDK runtime image and parses the JDK classes it needs from there.
+     * Defaults to false.
+     *
+     * @return whether the classes of the JDK are loaded
+     */
+    @Input
+    public abstract Property<Boolean> getIncludeJdk();
+
+    /**
+     * Returns whether the game classes are cleaned in parallel, one level of the class hierarchy at a time.
+     * The extracted metadata is the same as when cleaning the classes one by one. Defaults to false.
+     *
+     * @return whether the game classes are cleaned in parallel
+     */
+    @Input
+    public abstract Property<Boolean> getParallelCleaning();
 }
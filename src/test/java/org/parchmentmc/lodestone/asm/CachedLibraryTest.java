@@ -0,0 +1,153 @@
+package org.parchmentmc.lodestone.asm;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class CachedLibraryTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void summariesMatchTheClassFilesTheyWereWrittenFrom() throws IOException {
+        final Map<String, byte[]> classes = classes();
+        final CachedLibrary library = CachedLibrary.open(write(classes));
+
+        assertEquals(Arrays.asList("test/Generic", "test/Bridged", "test/Runner"), library.getClasses());
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            final StringBuilder expected = new StringBuilder();
+            new ClassReader(entry.getValue()).accept(new Summary(expected), ClassReader.SKIP_FRAMES);
+            final StringBuilder actual = new StringBuilder();
+            library.accept(entry.getKey(), new Summary(actual), ClassReader.SKIP_FRAMES);
+            assertEquals(expected.toString(), actual.toString());
+        }
+        assertNull(library.read("test/Missing"));
+    }
+
+    @Test
+    public void damagedFilesAreRejectedWhenOpened() throws IOException {
+        final Path file = write(classes());
+        final byte[] bytes = Files.readAllBytes(file);
+
+        final Path truncated = folder.newFile("truncated.lhc").toPath();
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 8));
+        assertRejected(truncated);
+
+        final Path flipped = folder.newFile("flipped.lhc").toPath();
+        final byte[] damaged = bytes.clone();
+        damaged[damaged.length - 5] ^= 0x10;
+        Files.write(flipped, damaged);
+        assertRejected(flipped);
+    }
+
+    private static void assertRejected(final Path file) {
+        try {
+            CachedLibrary.open(file);
+            fail("Opened a damaged cache file: " + file);
+        } catch (IOException e) {
+            // Expected, the cache file is rebuilt.
+        }
+    }
+
+    private Path write(final Map<String, byte[]> classes) throws IOException {
+        final CachedLibrary.Writer writer = new CachedLibrary.Writer();
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            writer.add(entry.getKey(), entry.getValue());
+        }
+
+        final Path file = folder.newFile("library.lhc").toPath();
+        try (OutputStream out = Files.newOutputStream(file)) {
+            writer.write(out);
+        }
+        return file;
+    }
+
+    /**
+     * Writes {@code abstract class Generic<T>}, {@code class Bridged extends Generic<String>} with its synthetic bridge method,
+     * and {@code interface Runner extends Runnable}.
+     */
+    private static Map<String, byte[]> classes() {
+        final Map<String, byte[]> classes = new LinkedHashMap<>();
+
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "test/Generic", "<T:Ljava/lang/Object;>Ljava/lang/Object;", "java/lang/Object", null);
+        writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "accept", "(Ljava/lang/Object;)V", "(TT;)V", null).visitEnd();
+        writer.visitEnd();
+        classes.put("test/Generic", writer.toByteArray());
+
+        writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "test/Bridged", "Ltest/Generic<Ljava/lang/String;>;", "test/Generic", null);
+        MethodVisitor visitor = writer.visitMethod(Opcodes.ACC_PUBLIC, "accept", "(Ljava/lang/String;)V", null, null);
+        visitor.visitCode();
+        visitor.visitInsn(Opcodes.RETURN);
+        visitor.visitMaxs(0, 0);
+        visitor.visitEnd();
+        visitor = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE, "accept", "(Ljava/lang/Object;)V", null, null);
+        visitor.visitCode();
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitVarInsn(Opcodes.ALOAD, 1);
+        visitor.visitTypeInsn(Opcodes.CHECKCAST, "java/lang/String");
+        visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "test/Bridged", "accept", "(Ljava/lang/String;)V", false);
+        visitor.visitInsn(Opcodes.RETURN);
+        visitor.visitMaxs(0, 0);
+        visitor.visitEnd();
+        writer.visitEnd();
+        classes.put("test/Bridged", writer.toByteArray());
+
+        writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT, "test/Runner", null, "java/lang/Object", new String[]{"java/lang/Runnable"});
+        writer.visitEnd();
+        classes.put("test/Runner", writer.toByteArray());
+
+        return classes;
+    }
+
+    /**
+     * Records the parts of a class a summary keeps: the class header, the method declarations and the methods bouncers invoke.
+     */
+    private static final class Summary extends ClassVisitor {
+        private final StringBuilder builder;
+
+        private Summary(final StringBuilder builder) {
+            super(Opcodes.ASM9);
+            this.builder = builder;
+        }
+
+        @Override
+        public void visit(final int version, final int access, final String name, final String signature, final String superName, final String[] interfaces) {
+            builder.append("class ").append(access).append(' ').append(name).append(' ').append(signature)
+                    .append(' ').append(superName).append(' ').append(Arrays.toString(interfaces)).append('\n');
+        }
+
+        @Override
+        public MethodVisitor visitMethod(final int access, final String name, final String descriptor, final String signature, final String[] exceptions) {
+            builder.append("method ").append(access).append(' ').append(name).append(descriptor).append(' ').append(signature).append('\n');
+            if ((access & Opcodes.ACC_BRIDGE) == 0)
+                return null;
+
+            return new MethodVisitor(Opcodes.ASM9) {
+                @Override
+                public void visitMethodInsn(final int opcode, final String owner, final String name, final String descriptor, final boolean isInterface) {
+                    builder.append("  invokes ").append(owner).append('.').append(name).append(descriptor).append('\n');
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package org.parchmentmc.lodestone.asm;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CodeCleanerTest {
+    /**
+     * The classes cleaned by the tests, in the order they are cleaned in.
+     * {@code Impl} and {@code Other} form a diamond over {@code Base.run()}, which implements {@code Action} and {@code Task}
+     * only through them. {@code Sub} and {@code Late} override {@code Base.run()} after the abstract methods are resolved.
+     */
+    private static final List<String> CLASSES = Arrays.asList("test/Action", "test/Task", "test/Base", "test/Impl", "test/Other", "test/Sub", "test/Late", "test/Generic", "test/Bridged");
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void parallelCleaningMatchesSequentialCleaning() throws IOException {
+        final Path jar = writeJar();
+
+        final String sequential;
+        try (CodeTree codeTree = new CodeTree()) {
+            codeTree.load(jar, false);
+            final CodeCleaner cleaner = new CodeCleaner(codeTree);
+            for (MutableClassInfo info : metadata(codeTree)) {
+                cleaner.cleanClass(info);
+            }
+            sequential = dump(metadata(codeTree));
+        }
+
+        final String parallel;
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try (CodeTree codeTree = new CodeTree()) {
+            codeTree.load(jar, false);
+            new CodeCleaner(codeTree).cleanClasses(metadata(codeTree), pool);
+            parallel = dump(metadata(codeTree));
+        } finally {
+            pool.shutdown();
+        }
+
+        //The overrides Base.run() gains from Impl and Other have to reach the classes cleaned after them.
+        assertTrue(sequential, sequential.contains("test/Late.run()V overrides [test/Action.run()V, test/Task.run()V]"));
+        assertEquals(sequential, parallel);
+    }
+
+    private static List<MutableClassInfo> metadata(final CodeTree codeTree) {
+        final List<MutableClassInfo> infos = new ArrayList<>();
+        for (String cls : CLASSES) {
+            infos.add(codeTree.getClassMetadataFor(cls));
+        }
+        return infos;
+    }
+
+    private static String dump(final List<MutableClassInfo> infos) {
+        final StringBuilder builder = new StringBuilder();
+        for (MutableClassInfo info : infos) {
+            for (MutableMethodInfo method : info.getMethods().values()) {
+                final List<String> overrides = new ArrayList<>();
+                for (MutableMethodReferenceInfo override : method.getOverrides()) {
+                    overrides.add(reference(override));
+                }
+                overrides.sort(null);
+
+                builder.append(info.getName()).append('.').append(method.getMethod().getName()).append(method.getMethod().getDesc())
+                        .append(" overrides ").append(overrides)
+                        .append(" parent ").append(reference(method.getParent()));
+                if (method.getBouncer() != null) {
+                    builder.append(" bouncer owner ").append(reference(method.getBouncer().getOwner()));
+                }
+                builder.append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String reference(final MutableMethodReferenceInfo reference) {
+        return reference == null ? "null" : reference.getOwner() + "." + reference.getName() + reference.getDesc();
+    }
+
+    private Path writeJar() throws IOException {
+        final Map<String, byte[]> classes = new LinkedHashMap<>();
+        classes.put("test/Action", writeClass("test/Action", Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT, "java/lang/Object", null, "run", true));
+        classes.put("test/Task", writeClass("test/Task", Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT, "java/lang/Object", null, "run", true));
+        classes.put("test/Base", writeClass("test/Base", Opcodes.ACC_PUBLIC, "java/lang/Object", null, "run", false));
+        classes.put("test/Impl", writeClass("test/Impl", Opcodes.ACC_PUBLIC, "test/Base", "test/Action", null, false));
+        classes.put("test/Other", writeClass("test/Other", Opcodes.ACC_PUBLIC, "test/Base", "test/Task", null, false));
+        classes.put("test/Sub", writeClass("test/Sub", Opcodes.ACC_PUBLIC, "test/Impl", null, "run", false));
+        classes.put("test/Late", writeClass("test/Late", Opcodes.ACC_PUBLIC, "test/Base", null, "run", false));
+        classes.put("test/Generic", writeGeneric());
+        classes.put("test/Bridged", writeBridged());
+
+        final Path jar = folder.newFile("classes.jar").toPath();
+        try (OutputStream output = Files.newOutputStream(jar); ZipOutputStream zip = new ZipOutputStream(output)) {
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey() + ".class"));
+                zip.write(entry.getValue());
+                zip.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    private static byte[] writeClass(final String name, final int access, final String superName, final String itf, final String method, final boolean abstractMethod) {
+        final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, access, name, null, superName, itf == null ? null : new String[]{itf});
+        if ((access & Opcodes.ACC_INTERFACE) == 0) {
+            writeConstructor(writer, superName);
+        }
+        if (method != null) {
+            final MethodVisitor visitor = writer.visitMethod(Opcodes.ACC_PUBLIC | (abstractMethod ? Opcodes.ACC_ABSTRACT : 0), method, "()V", null, null);
+            if (!abstractMethod) {
+                visitor.visitCode();
+                visitor.visitInsn(Opcodes.RETURN);
+                visitor.visitMaxs(0, 0);
+            }
+            visitor.visitEnd();
+        }
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    /**
+     * Writes {@code abstract class Generic<T> { abstract void accept(T value); }}.
+     */
+    private static byte[] writeGeneric() {
+        final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "test/Generic", "<T:Ljava/lang/Object;>Ljava/lang/Object;", "java/lang/Object", null);
+        writeConstructor(writer, "java/lang/Object");
+        writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "accept", "(Ljava/lang/Object;)V", "(TT;)V", null).visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    /**
+     * Writes {@code class Bridged extends Generic<String> { void accept(String value) {} }} with its synthetic bridge method.
+     */
+    private static byte[] writeBridged() {
+        final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "test/Bridged", "Ltest/Generic<Ljava/lang/String;>;", "test/Generic", null);
+        writeConstructor(writer, "test/Generic");
+
+        MethodVisitor visitor = writer.visitMethod(Opcodes.ACC_PUBLIC, "accept", "(Ljava/lang/String;)V", null, null);
+        visitor.visitCode();
+        visitor.visitInsn(Opcodes.RETURN);
+        visitor.visitMaxs(0, 0);
+        visitor.visitEnd();
+
+        visitor = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE, "accept", "(Ljava/lang/Object;)V", null, null);
+        visitor.visitCode();
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitVarInsn(Opcodes.ALOAD, 1);
+        visitor.visitTypeInsn(Opcodes.CHECKCAST, "java/lang/String");
+        visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "test/Bridged", "accept", "(Ljava/lang/String;)V", false);
+        visitor.visitInsn(Opcodes.RETURN);
+        visitor.visitMaxs(0, 0);
+        visitor.visitEnd();
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static void writeConstructor(final ClassWriter writer, final String superName) {
+        final MethodVisitor visitor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        visitor.visitCode();
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", "()V", false);
+        visitor.visitInsn(Opcodes.RETURN);
+        visitor.visitMaxs(0, 0);
+        visitor.visitEnd();
+    }
+}